@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Builds the production jar (Spring AOT, see the prod profile in pom.xml) and
+# runs it with an AppCDS archive. Class data sharing needs plain jars on the
+# class path, so the jar is extracted to target/prod. The first run after a
+# build is a training run that starts the context, dumps the loaded classes to
+# app.jsa and exits; later runs map that archive instead of loading classes.
+#
+#   ./run-prod.sh [--server.port=8080 ...]    SKIP_BUILD=1 reuses target/
+set -euo pipefail
+cd "$(dirname "$0")"
+
+if [ "${SKIP_BUILD:-}" != "1" ]; then
+  mvn -B -q -Pprod -DskipTests package
+fi
+
+JAR=$(ls target/backend-*.jar | grep -v -- '-lib.jar$' | head -1)
+APP=target/prod
+if [ ! -f "$APP/classpath.args" ] || [ "$JAR" -nt "$APP/classpath.args" ]; then
+  rm -rf "$APP"
+  mkdir -p "$APP/exploded"
+  (cd "$APP/exploded" && jar -xf "../../$(basename "$JAR")")
+  # CDS does not accept class directories, so the application classes go into a jar of their own
+  jar -cf "$APP/application.jar" -C "$APP/exploded/BOOT-INF/classes" .
+  mv "$APP/exploded/BOOT-INF/lib" "$APP/lib"
+  rm -rf "$APP/exploded"
+  # The archive is only used with exactly the class path it was dumped with
+  (cd "$APP" && printf -- '-cp application.jar%s\n' "$(ls lib/*.jar | sort | sed 's/^/:/' | tr -d '\n')" > classpath.args)
+fi
+
+cd "$APP"
+MAIN=com.bgmsons.backend.BackendApplication
+if [ ! -f app.jsa ]; then
+  java -XX:ArchiveClassesAtExit=app.jsa -Xlog:cds=error -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    @classpath.args "$MAIN" "$@"
+fi
+exec java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true ${JAVA_OPTS:-} @classpath.args "$MAIN" "$@"
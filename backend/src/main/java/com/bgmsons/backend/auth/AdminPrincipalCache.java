@@ -0,0 +1,87 @@
+package com.bgmsons.backend.auth;
+
+import com.bgmsons.backend.model.Admin;
+import com.bgmsons.backend.repository.AdminRepository;
+import com.bgmsons.backend.util.CacheUtil;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of admin principals by username, so authenticated
+ * requests don't look the admin up in Mongo every time. Saving or deleting an
+ * admin through the repository invalidates the cache; changes made directly
+ * in the database are picked up once the TTL runs out.
+ */
+@Component
+public class AdminPrincipalCache extends AbstractMongoEventListener<Admin> {
+
+    private final AdminRepository adminRepository;
+    // Async only so the repository lookup runs outside the cache's locks; see CacheUtil
+    private final AsyncCache<String, Optional<UserDetails>> principals;
+
+    public AdminPrincipalCache(AdminRepository adminRepository, MeterRegistry meterRegistry,
+                               @Value("${bgm.auth.principal-ttl:60s}") Duration ttl) {
+        this.adminRepository = adminRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals.synchronous(), "auth.principals");
+    }
+
+    public Optional<UserDetails> find(String username) {
+        return CacheUtil.get(principals, username, name -> adminRepository.findByUsername(name).map(AdminPrincipalCache::toUserDetails));
+    }
+
+    public void invalidate(String username) {
+        principals.synchronous().invalidate(username);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = principals.synchronous().stats();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("entries", principals.synchronous().estimatedSize());
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        return description;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Admin> event) {
+        invalidate(event.getSource().getUsername());
+    }
+
+    // Only the id of a deleted admin is known here
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Admin> event) {
+        principals.synchronous().invalidateAll();
+    }
+
+    private static UserDetails toUserDetails(Admin admin) {
+        return User.builder()
+                .username(admin.getUsername())
+                .password(admin.getPassword())
+                .authorities(Collections.emptyList())
+                .build();
+    }
+}
@@ -1,8 +1,6 @@
 package com.bgmsons.backend.auth;
 
-import com.bgmsons.backend.model.Admin;
-import com.bgmsons.backend.repository.AdminRepository;
-import com.bgmsons.backend.util.JwtUtil;
+import com.bgmsons.backend.util.JwtUtil.VerifiedToken;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -12,7 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -24,7 +22,10 @@ import java.util.Optional;
 public class AuthMiddleware extends OncePerRequestFilter {
 
     @Autowired
-    private AdminRepository adminRepository;
+    private TokenVerifier tokenVerifier;
+
+    @Autowired
+    private AdminPrincipalCache adminPrincipalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -35,25 +36,20 @@ public class AuthMiddleware extends OncePerRequestFilter {
             return;
         }
 
-        String token = authHeader.substring(7);
-        if (!JwtUtil.isTokenValid(token)) {
+        VerifiedToken token = tokenVerifier.verify(authHeader.substring(7));
+        if (token == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String username = JwtUtil.extractUsername(token);
-        Optional<Admin> admin = adminRepository.findByUsername(username);
+        Optional<UserDetails> admin = adminPrincipalCache.find(token.subject());
         if(admin.isEmpty()){
             filterChain.doFilter(request, response);
             return;
         }
 
         UsernamePasswordAuthenticationToken userPassAuthToken = new UsernamePasswordAuthenticationToken(
-            User.builder()
-            .username(username)
-            .password(admin.get().getPassword())
-            .authorities(Collections.emptyList())
-            .build()
+            admin.get()
             , null
             , Collections.emptyList()
         );
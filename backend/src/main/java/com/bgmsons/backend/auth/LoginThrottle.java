@@ -0,0 +1,106 @@
+package com.bgmsons.backend.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Protects the login endpoint. Each client IP and each username gets a token
+ * bucket, implemented as GCRA: a single theoretical arrival time per key,
+ * advanced with a CAS, so checking a key is lock-free. The keys live in a
+ * bounded Caffeine map that drops idle buckets. The map's concurrent hash
+ * table is already striped, so there is no global lock to contend on.
+ *
+ * Password checks also run through a fixed number of permits. Attempts that
+ * find no free permit are rejected instead of queueing behind BCrypt.
+ *
+ * The username bucket is taken before the password is checked, so it cannot
+ * tell the owner from someone guessing: anyone who keeps trying to log in
+ * as "admin" also makes the real admin wait for that bucket. That is the
+ * price of stopping a guesser who spreads attempts over many addresses;
+ * raise {@code bgm.auth.login.username-limit} if lockouts matter more.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final Bucket perIp;
+    private final Bucket perUsername;
+    private final Semaphore bulkhead;
+
+    /**
+     * Rate of {@code limit} attempts per {@code period}, allowing bursts of up
+     * to {@code limit}.
+     */
+    private record Bucket(long intervalNanos, long toleranceNanos) {
+
+        static Bucket of(int limit, Duration period) {
+            long interval = period.toNanos() / limit;
+            return new Bucket(interval, interval * (limit - 1));
+        }
+    }
+
+    public LoginThrottle(@Value("${bgm.auth.login.ip-limit:20}") int ipLimit,
+                         @Value("${bgm.auth.login.username-limit:10}") int usernameLimit,
+                         @Value("${bgm.auth.login.period:1m}") Duration period,
+                         @Value("${bgm.auth.login.max-keys:100000}") long maxKeys,
+                         @Value("${bgm.auth.login.concurrency:0}") int concurrency) {
+        this.perIp = Bucket.of(ipLimit, period);
+        this.perUsername = Bucket.of(usernameLimit, period);
+        // A bucket left alone for a full period is back to full, so it can be forgotten
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(period)
+                .build();
+        int permits = concurrency > 0 ? concurrency : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.bulkhead = new Semaphore(permits);
+    }
+
+    /**
+     * Takes one attempt from the IP's and the username's bucket. Returns 0 if
+     * the attempt may go ahead, otherwise the number of seconds to wait.
+     */
+    public long acquire(String ip, String username) {
+        long now = System.nanoTime();
+        long wait = take("ip:" + ip, perIp, now);
+        if (wait == 0) {
+            wait = take("user:" + (username == null ? "" : username.toLowerCase(Locale.ROOT)), perUsername, now);
+        }
+        return wait == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * Claims a permit for a password check without waiting. The caller must
+     * {@link #release()} it if this returns true.
+     */
+    public boolean tryEnter() {
+        return bulkhead.tryAcquire();
+    }
+
+    public void release() {
+        bulkhead.release();
+    }
+
+    private long take(String key, Bucket bucket, long now) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long theoretical = arrival.get();
+            long start = Math.max(theoretical, now);
+            long wait = start - bucket.toleranceNanos() - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(theoretical, start + bucket.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+}
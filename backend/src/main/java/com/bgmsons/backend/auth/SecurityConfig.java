@@ -3,6 +3,7 @@ package com.bgmsons.backend.auth;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -38,6 +39,9 @@ public class SecurityConfig {
   @Autowired
   private AuthMiddleware authMiddleware;
 
+  @Value("${management.server.port:}")
+  private Integer managementPort;
+
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception{
 
@@ -45,8 +49,14 @@ public class SecurityConfig {
       .csrf(AbstractHttpConfigurer::disable)
       .authorizeHttpRequests(
           auth -> {
-            auth.requestMatchers(HttpMethod.GET, "/api/products/**").permitAll()
-            .requestMatchers("/api/mail/**","/api/admin/**").permitAll()
+            auth.requestMatchers(HttpMethod.GET, "/api/products/export").authenticated()
+            .requestMatchers(HttpMethod.GET, "/api/products/**", "/api/images/**").permitAll()
+            .requestMatchers(HttpMethod.GET, "/sitemap.xml", "/sitemap-*.xml").permitAll()
+            .requestMatchers("/api/mail/**","/api/admin/login","/api/admin/verify").permitAll()
+            .requestMatchers("/error").permitAll()
+            .requestMatchers("/actuator/health").permitAll()
+            // Metrics need an admin token, unless served on a separate management port
+            .requestMatchers(request -> managementPort != null && request.getLocalPort() == managementPort).permitAll()
             .anyRequest().authenticated();
           }
       )
@@ -0,0 +1,111 @@
+package com.bgmsons.backend.auth;
+
+import com.bgmsons.backend.util.JwtUtil;
+import com.bgmsons.backend.util.JwtUtil.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers tokens that already passed signature verification, so repeated
+ * requests with the same token skip the JWT parse and HMAC. Entries are keyed
+ * by the SHA-256 of the token rather than the token itself, and each one
+ * expires together with its token. Failed verifications are not cached.
+ */
+@Component
+public class TokenVerifier {
+
+    private final Cache<ByteBuffer, VerifiedToken> verified;
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+
+    public TokenVerifier(MeterRegistry meterRegistry,
+                         @Value("${bgm.auth.token-cache.max-size:10000}") long maxSize) {
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken token, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "auth.tokens");
+        this.cachedTimer = verifyTimer(meterRegistry, "cached");
+        this.verifiedTimer = verifyTimer(meterRegistry, "verified");
+        this.rejectedTimer = verifyTimer(meterRegistry, "rejected");
+    }
+
+    /**
+     * Returns the verified token, or null if it is invalid or expired.
+     */
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        ByteBuffer key = hash(token);
+        VerifiedToken cached = verified.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        VerifiedToken result = JwtUtil.verify(token);
+        if (result != null) {
+            verified.put(key, result);
+        }
+        (result != null ? verifiedTimer : rejectedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = verified.stats();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("entries", verified.estimatedSize());
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        return description;
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("bgm.auth.jwt.verify")
+                .description("Bearer token verification, including cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bgmsons.backend.catalog;
+
+import lombok.Data;
+
+import java.util.Set;
+
+/**
+ * Published after a write to the product catalogue. Caches, indexes and
+ * feeds listen for it instead of being called from every write path.
+ */
+@Data
+public class CatalogChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        // Many products changed at once (imports, migrations); productId is null
+        BULK
+    }
+
+    private final Type type;
+    private final String productId;
+    // Top-level fields an UPDATED event changed, or null if not known
+    private Set<String> fields;
+
+    public static CatalogChangedEvent bulk() {
+        return new CatalogChangedEvent(Type.BULK, null);
+    }
+}
@@ -0,0 +1,344 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.repository.ProductRepository;
+import com.bgmsons.backend.util.MailUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * sitemap.xml and the JSON and CSV product feeds, rendered to files. One
+ * pass over a projected cursor writes all of them, so memory stays flat
+ * however large the catalogue is; past the sitemap limit of 50,000 URLs the
+ * sitemap is split into shards listed by a sitemap index. Each file also
+ * gets a gzip copy.
+ *
+ * The files are rendered for one {@link CatalogVersion}. A request after a
+ * write schedules a new rendering, at most one per min-interval, and is
+ * answered from the previous files meanwhile; only requests that arrive
+ * before the first rendering wait for it. If the first rendering fails there
+ * are no files to answer from until a retry succeeds.
+ *
+ * Products record no modification time, so the sitemap leaves out lastmod
+ * rather than guessing one.
+ */
+@Component
+public class CatalogFeeds {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogFeeds.class);
+    public static final String SITEMAP = "sitemap.xml";
+    public static final String JSON = "products.json";
+    public static final String CSV = "products.csv";
+    private static final int MAX_SITEMAP_URLS = 50_000;
+    private static final String SITEMAP_NS = "http://www.sitemaps.org/schemas/sitemap/0.9";
+
+    private final ProductRepository productRepository;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final int shardSize;
+    private final Duration minInterval;
+    private final Duration firstWait;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final CompletableFuture<Generation> first = new CompletableFuture<>();
+    private Path root;
+    private volatile Generation current;
+    private Generation previous;
+    private volatile long lastStarted;
+
+    /**
+     * One rendering of the files. {@code shards} is zero when sitemap.xml
+     * holds the URLs itself.
+     */
+    public record Generation(long version, long lastModified, Path dir, int products, int shards) {
+
+        // A rendered file by name, null when there is no such file
+        public Path file(String name) {
+            Path file = dir.resolve(name).normalize();
+            return file.getParent().equals(dir) && Files.isRegularFile(file) ? file : null;
+        }
+    }
+
+    public CatalogFeeds(ProductRepository productRepository, CatalogVersion catalogVersion, ObjectMapper objectMapper,
+                        @Value("${bgm.catalog.feeds.sitemap-shard-size:50000}") int shardSize,
+                        @Value("${bgm.catalog.feeds.min-interval:30s}") Duration minInterval,
+                        @Value("${bgm.catalog.feeds.first-wait:60s}") Duration firstWait) {
+        this.productRepository = productRepository;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.shardSize = Math.min(shardSize, MAX_SITEMAP_URLS);
+        this.minInterval = minInterval;
+        this.firstWait = firstWait;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-feeds");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The latest rendered files, scheduling a new rendering when the
+     * catalogue changed since. Null if the first rendering is not ready in
+     * time or failed.
+     */
+    public Generation current() {
+        Generation generation = current;
+        if (generation == null || generation.version() != catalogVersion.current()) {
+            refresh();
+        }
+        if (generation != null) {
+            return generation;
+        }
+        try {
+            return first.get(firstWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        executor.shutdownNow();
+        if (root != null) {
+            FileSystemUtils.deleteRecursively(root);
+        }
+    }
+
+    private void refresh() {
+        if (scheduled.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastStarted + minInterval.toMillis() - System.currentTimeMillis());
+            executor.schedule(this::generate, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void generate() {
+        // Cleared first, so a write from here on schedules another rendering
+        scheduled.set(false);
+        long version = catalogVersion.current();
+        long lastModified = catalogVersion.lastModified();
+        if (current != null && current.version() == version) {
+            return;
+        }
+        lastStarted = System.currentTimeMillis();
+
+        Path dir = null;
+        try {
+            if (root == null) {
+                root = Files.createTempDirectory("bgm-feeds");
+            }
+            dir = root.resolve(Long.toString(version, 36));
+            // Left over when an earlier attempt could not clean up
+            FileSystemUtils.deleteRecursively(dir);
+            Files.createDirectory(dir);
+            Generation generation = render(dir, version, lastModified);
+            // The files before last may still be on their way out through sendfile
+            if (previous != null) {
+                FileSystemUtils.deleteRecursively(previous.dir());
+            }
+            previous = current;
+            current = generation;
+            first.complete(generation);
+            logger.info("Rendered sitemap and product feeds: {} products, {} sitemap shards in {} ms",
+                    generation.products(), generation.shards(), System.currentTimeMillis() - lastStarted);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not render the sitemap and product feeds: {}", e.toString());
+            // Nothing to serve: waiting requests get a 503 now, the next one schedules a retry
+            first.completeExceptionally(e);
+            try {
+                if (dir != null) {
+                    FileSystemUtils.deleteRecursively(dir);
+                }
+            } catch (IOException ignored) {
+                // left for stop()
+            }
+        }
+    }
+
+    private Generation render(Path dir, long version, long lastModified) throws IOException {
+        int products = 0;
+        int shards = 0;
+        Writer shard = null;
+        try (Writer csv = Files.newBufferedWriter(dir.resolve(CSV), StandardCharsets.UTF_8);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(
+                     Files.newBufferedWriter(dir.resolve(JSON), StandardCharsets.UTF_8));
+             Stream<Product> stream = productRepository.streamForFeeds()) {
+            csv.write("id,url,name,category,subcategory,image,created,description\r\n");
+            json.writeStartArray();
+            for (Product product : (Iterable<Product>) stream::iterator) {
+                if (products % shardSize == 0) {
+                    closeUrlset(shard);
+                    shard = openUrlset(dir.resolve(shardName(++shards)));
+                }
+                String url = MailUtil.productUrl(product.getId());
+                writeUrl(shard, url);
+                writeCsv(csv, product, url);
+                writeJson(json, product, url);
+                products++;
+            }
+            json.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            closeUrlset(shard);
+        }
+
+        Path sitemap = dir.resolve(SITEMAP);
+        if (shards <= 1) {
+            // Small enough for sitemap.xml to list the URLs itself
+            if (shards == 1) {
+                Files.move(dir.resolve(shardName(1)), sitemap);
+            } else {
+                closeUrlset(openUrlset(sitemap));
+            }
+            shards = 0;
+        } else {
+            writeSitemapIndex(sitemap, shards);
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                gzip(file);
+            }
+        }
+        return new Generation(version, lastModified, dir, products, shards);
+    }
+
+    public static String shardName(int shard) {
+        return "sitemap-" + shard + ".xml";
+    }
+
+    private static Writer openUrlset(Path file) throws IOException {
+        Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<urlset xmlns=\"" + SITEMAP_NS + "\">\n");
+        return writer;
+    }
+
+    private static void closeUrlset(Writer writer) throws IOException {
+        if (writer != null) {
+            writer.write("</urlset>\n");
+            writer.close();
+        }
+    }
+
+    private static void writeUrl(Writer writer, String url) throws IOException {
+        writer.write("<url><loc>");
+        writer.write(escapeXml(url));
+        writer.write("</loc></url>\n");
+    }
+
+    private static void writeSitemapIndex(Path file, int shards) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<sitemapindex xmlns=\"" + SITEMAP_NS + "\">\n");
+            for (int shard = 1; shard <= shards; shard++) {
+                writer.write("<sitemap><loc>" + escapeXml(MailUtil.siteUrl("/" + shardName(shard))) + "</loc></sitemap>\n");
+            }
+            writer.write("</sitemapindex>\n");
+        }
+    }
+
+    private static void writeCsv(Writer writer, Product product, String url) throws IOException {
+        List<String> fields = List.of(product.getId(), url, text(product.getName()), text(product.getCategory()),
+                text(product.getSubcategory()), text(image(product)),
+                product.getCreated() != null ? product.getCreated().toString() : "", text(product.getDescription()));
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(fields.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeJson(JsonGenerator json, Product product, String url) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("id", product.getId());
+        json.writeStringField("url", url);
+        json.writeStringField("name", product.getName());
+        json.writeStringField("category", product.getCategory());
+        json.writeStringField("subcategory", product.getSubcategory());
+        json.writeStringField("image", image(product));
+        json.writeStringField("created", product.getCreated() != null ? product.getCreated().toString() : null);
+        json.writeStringField("description", product.getDescription());
+        json.writeEndObject();
+    }
+
+    // Cover image as an absolute URL; uploads are stored as site paths
+    private static String image(Product product) {
+        if (product.getImages() == null || product.getImages().isEmpty()) {
+            return null;
+        }
+        String image = product.getImages().get(0);
+        return image != null && image.startsWith("/") ? MailUtil.siteUrl(image) : image;
+    }
+
+    private static void gzip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(file.resolveSibling(file.getFileName() + ".gz"))) {
+                 {
+                     def.setLevel(Deflater.BEST_COMPRESSION);
+                 }
+             }) {
+            in.transferTo(out);
+        }
+    }
+
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String escapeXml(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&apos;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.util.AcceptEncodingUtil;
+import com.bgmsons.backend.util.CacheUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds catalogue GET responses from JSON that is serialized and compressed
+ * once per catalogue version. A repeated request is a cache lookup plus a
+ * byte-array write. Responses carry an ETag and Last-Modified derived from
+ * {@link CatalogVersion}, so revalidating clients get a 304 from Spring's
+ * conditional request handling.
+ */
+@Component
+public class CatalogResponses {
+
+    // Below this size compression saves less than the header overhead
+    private static final int MIN_COMPRESS_BYTES = 512;
+
+    private final ObjectMapper objectMapper;
+    private final CatalogVersion catalogVersion;
+    // Async only so encoding, and the loads behind it, run outside the cache's locks; see CacheUtil
+    private final AsyncCache<ResponseKey, Encoded> responses;
+
+    // Built from bound, normalized parameters; raw query strings would let clients mint keys
+    private record ResponseKey(long version, Object key) {
+    }
+
+    private record Encoded(byte[] identity, byte[] gzip, byte[] deflate) {
+        int weight() {
+            return identity.length + (gzip != null ? gzip.length : 0) + (deflate != null ? deflate.length : 0);
+        }
+    }
+
+    public CatalogResponses(ObjectMapper objectMapper, CatalogVersion catalogVersion, MeterRegistry meterRegistry,
+                            @Value("${bgm.catalog.response-cache.max-size:32MB}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.catalogVersion = catalogVersion;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((ResponseKey key, Encoded encoded) -> encoded.weight())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses.synchronous(), "catalog.responses");
+    }
+
+    /**
+     * Returns the JSON for {@code body} in the best encoding the client
+     * accepts. {@code key} identifies the body within a catalogue version and
+     * must only be made of bound, normalized request parameters. The
+     * supplier is only called on a cache miss.
+     */
+    public ResponseEntity<byte[]> json(HttpServletRequest request, Object key, Supplier<?> body) {
+        long version = catalogVersion.current();
+        Encoded encoded = CacheUtil.get(responses, new ResponseKey(version, key), k -> encode(body.get()));
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        String encoding = null;
+        byte[] content = encoded.identity();
+        if (encoded.gzip() != null && AcceptEncodingUtil.accepts(acceptEncoding, "gzip")) {
+            encoding = "gzip";
+            content = encoded.gzip();
+        } else if (encoded.deflate() != null && AcceptEncodingUtil.accepts(acceptEncoding, "deflate")) {
+            encoding = "deflate";
+            content = encoded.deflate();
+        }
+
+        // Each content coding is a distinct representation and needs its own strong ETag
+        String etag = "\"" + Long.toString(version, 36) + (encoding != null ? "-" + encoding : "") + "\"";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .lastModified(catalogVersion.lastModified())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encoding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return response.body(content);
+    }
+
+    private Encoded encode(Object body) {
+        byte[] identity;
+        try {
+            identity = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalogue response", e);
+        }
+        if (identity.length < MIN_COMPRESS_BYTES) {
+            return new Encoded(identity, null, null);
+        }
+        return new Encoded(identity, gzip(identity), deflate(identity));
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4);
+        try (OutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // HTTP "deflate" is the zlib format, which is what Deflater writes by default
+    private static byte[] deflate(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+}
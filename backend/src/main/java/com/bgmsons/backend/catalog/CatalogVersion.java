@@ -0,0 +1,37 @@
+package com.bgmsons.backend.catalog;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic catalogue version, bumped on every {@link CatalogChangedEvent}.
+ * It starts from the boot time so versions handed out before a restart are
+ * never reused, and validators derived from it stay strong.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public long current() {
+        return version.get();
+    }
+
+    // Epoch millis of the last write, or of startup when nothing was written since
+    public long lastModified() {
+        return lastModified;
+    }
+
+    // After the caches are evicted: a request that sees the new version must not load the old data
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,350 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.ProductChange;
+import com.bgmsons.backend.model.ProductChanges;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The most recent catalogue changes in a ring buffer, numbered by a
+ * monotonic feed version, and the Server-Sent Events subscribers they are
+ * pushed to. Changes come from {@link ProductChangeSource}.
+ *
+ * Subscribers hold no thread while idle. One scheduler thread puts every
+ * change, replay and heartbeat on the subscribers' queues, in version order,
+ * and never blocks on a client: writer threads drain each queue, one writer
+ * per subscriber at a time. A subscriber whose queue fills up is too slow to
+ * keep up and is disconnected; it resumes from its Last-Event-ID. With
+ * {@code spring.threads.virtual.enabled=true} the writers are virtual
+ * threads, otherwise a fixed pool, where a client that stopped reading holds
+ * a writer until the connector's write timeout.
+ * Like {@link CatalogVersion} the version starts from the boot time, so a
+ * version from before a restart is never mistaken for a current one.
+ */
+@Component
+public class ChangeFeed {
+
+    private final ObjectMapper objectMapper;
+    private final ProductChange[] ring;
+    private final long base = System.currentTimeMillis();
+    private long latest = base;
+
+    private final int maxSubscribers;
+    private final long streamTimeout;
+    private final int queueCapacity;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor;
+    private final Executor writers;
+    private final Counter dropped;
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        // Guarded by the subscriber
+        private final ArrayDeque<Set<DataWithMediaType>> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        // Only touched on the feed thread
+        private long lastQueued;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    public ChangeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry, Environment environment,
+                      @Value("${bgm.catalog.changes.capacity:4096}") int capacity,
+                      @Value("${bgm.catalog.changes.max-subscribers:10000}") int maxSubscribers,
+                      @Value("${bgm.catalog.changes.subscriber-queue:256}") int queueCapacity,
+                      @Value("${bgm.catalog.changes.writers:16}") int writers,
+                      @Value("${bgm.catalog.changes.heartbeat:25s}") Duration heartbeat,
+                      @Value("${bgm.catalog.changes.stream-timeout:30m}") Duration streamTimeout) {
+        this.objectMapper = objectMapper;
+        this.ring = new ProductChange[capacity];
+        this.maxSubscribers = maxSubscribers;
+        this.queueCapacity = queueCapacity;
+        this.streamTimeout = streamTimeout.toMillis();
+        this.writers = writers(environment, writers);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+        Gauge.builder("bgm.catalog.changes.subscribers", subscribers, Set::size)
+                .description("Open Server-Sent Events subscriptions to the catalogue change feed")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("bgm.catalog.changes.dropped")
+                .description("Subscribers disconnected because they fell too far behind the change feed")
+                .register(meterRegistry);
+    }
+
+    public synchronized long current() {
+        return latest;
+    }
+
+    public void append(ProductChange.Type type, String id, Map<String, Object> fields) {
+        synchronized (this) {
+            ProductChange change = new ProductChange(++latest, type, id, fields);
+            ring[index(change.getVersion())] = change;
+            // Queued under the lock so broadcasts run in version order
+            executor.execute(() -> broadcast(change));
+        }
+    }
+
+    public void reset() {
+        append(ProductChange.Type.RESET, null, null);
+    }
+
+    /**
+     * Changes after {@code since}, collapsed to the net change per product.
+     * Without a usable version the response asks the client to reload.
+     */
+    public ProductChanges since(Long since) {
+        long version;
+        List<ProductChange> changes;
+        synchronized (this) {
+            version = latest;
+            changes = since != null ? changesAfter(since) : null;
+        }
+        if (changes == null) {
+            return new ProductChanges(version, true, List.of());
+        }
+
+        Map<String, ProductChange> net = new LinkedHashMap<>();
+        for (ProductChange change : changes) {
+            ProductChange previous = net.remove(change.getId());
+            ProductChange merged = previous != null ? merge(previous, change) : change;
+            if (merged != null) {
+                net.put(change.getId(), merged);
+            }
+        }
+        List<ProductChange> collapsed = new ArrayList<>(net.values());
+        collapsed.sort(Comparator.comparingLong(ProductChange::getVersion));
+        return new ProductChanges(version, false, collapsed);
+    }
+
+    /**
+     * Opens an event stream that first replays the changes after
+     * {@code since} (when given) and then follows the feed. Returns null when
+     * the subscriber limit is reached.
+     */
+    public SseEmitter subscribe(Long since) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        executor.execute(() -> replay(subscriber, since));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        if (writers instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    // Changes after the given version in order, or null if the buffer no longer reaches back that far
+    private List<ProductChange> changesAfter(long since) {
+        long oldest = Math.max(base + 1, latest - ring.length + 1);
+        if (since < oldest - 1 || since > latest) {
+            return null;
+        }
+        List<ProductChange> changes = new ArrayList<>((int) (latest - since));
+        for (long version = since + 1; version <= latest; version++) {
+            ProductChange change = ring[index(version)];
+            if (change.getType() == ProductChange.Type.RESET) {
+                return null;
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    // Net effect of two consecutive changes to one product; null if it cancels out
+    private static ProductChange merge(ProductChange previous, ProductChange next) {
+        if (next.getType() == ProductChange.Type.DELETED) {
+            return previous.getType() == ProductChange.Type.CREATED ? null : next;
+        }
+        if (next.getType() == ProductChange.Type.CREATED || previous.getType() == ProductChange.Type.DELETED) {
+            return next;
+        }
+        Map<String, Object> fields = new LinkedHashMap<>(previous.getFields());
+        fields.putAll(next.getFields());
+        return new ProductChange(next.getVersion(), previous.getType(), next.getId(), fields);
+    }
+
+    private int index(long version) {
+        return (int) (version % ring.length);
+    }
+
+    private void replay(Subscriber subscriber, Long since) {
+        List<ProductChange> backlog;
+        long version;
+        synchronized (this) {
+            version = latest;
+            backlog = since != null ? changesAfter(since) : List.of();
+        }
+        if (backlog == null) {
+            backlog = List.of(new ProductChange(version, ProductChange.Type.RESET, null, null));
+        }
+        // The backlog is bounded by the ring, the queue limit applies from here on
+        for (ProductChange change : backlog) {
+            offer(subscriber, change(change), false);
+        }
+        // Tells the client it has caught up, and gives it a Last-Event-ID to resume from
+        if (offer(subscriber, event("sync", version, "{\"version\":" + version + "}"), false)) {
+            subscriber.lastQueued = version;
+            subscribers.add(subscriber);
+        }
+    }
+
+    private void broadcast(ProductChange change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> event = change(change);
+        for (Subscriber subscriber : subscribers) {
+            // Skips changes the subscriber already got in its replay
+            if (change.getVersion() > subscriber.lastQueued && offer(subscriber, event, true)) {
+                subscriber.lastQueued = change.getVersion();
+            }
+        }
+    }
+
+    private void heartbeat() {
+        Set<DataWithMediaType> comment = SseEmitter.event().comment("").build();
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, comment, true);
+        }
+    }
+
+    // Queues an event without blocking, and starts a writer if none is draining the queue
+    private boolean offer(Subscriber subscriber, Set<DataWithMediaType> event, boolean bounded) {
+        boolean queued;
+        boolean start;
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return false;
+            }
+            queued = !bounded || subscriber.queue.size() < queueCapacity;
+            if (queued) {
+                subscriber.queue.add(event);
+            } else {
+                // Too slow to keep up: the writer disconnects it once it is done with the current send
+                subscriber.closed = true;
+                subscriber.queue.clear();
+                subscribers.remove(subscriber);
+                dropped.increment();
+            }
+            start = !subscriber.draining;
+            subscriber.draining = true;
+        }
+        if (start) {
+            writers.execute(() -> drain(subscriber));
+        }
+        return queued;
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            Set<DataWithMediaType> event;
+            synchronized (subscriber) {
+                event = subscriber.queue.poll();
+                if (event == null) {
+                    subscriber.draining = false;
+                    if (!subscriber.closed) {
+                        return;
+                    }
+                }
+            }
+            if (event == null) {
+                // Dropped for falling behind; completed here as complete() waits for a send in progress
+                subscriber.emitter.complete();
+                return;
+            }
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container completes the emitter
+                synchronized (subscriber) {
+                    subscriber.closed = true;
+                    subscriber.queue.clear();
+                    subscriber.draining = false;
+                }
+                subscribers.remove(subscriber);
+                return;
+            }
+        }
+    }
+
+    private static Executor writers(Environment environment, int writers) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor("catalog-changes-writer-");
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, writers), runnable -> {
+            Thread thread = new Thread(runnable, "catalog-changes-writer-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Set<DataWithMediaType> change(ProductChange change) {
+        try {
+            return event("change", change.getVersion(), objectMapper.writeValueAsString(change));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change " + change.getVersion(), e);
+        }
+    }
+
+    private static Set<DataWithMediaType> event(String name, long version, String json) {
+        return SseEmitter.event()
+                .id(Long.toString(version))
+                .name(name)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build();
+    }
+}
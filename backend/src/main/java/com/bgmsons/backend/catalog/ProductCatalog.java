@@ -0,0 +1,313 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.image.ImageService;
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductFacet;
+import com.bgmsons.backend.model.ProductFilter;
+import com.bgmsons.backend.model.ProductPatch;
+import com.bgmsons.backend.model.ProductSummary;
+import com.bgmsons.backend.repository.ProductRepository;
+import com.bgmsons.backend.util.CacheUtil;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Read-through cache in front of {@link ProductRepository}, and the single
+ * place products are written. Per-id entries and list/summary/facet views are
+ * held in two weight-bounded caches. Every write publishes a
+ * {@link CatalogChangedEvent}, which evicts exactly the affected entry and all
+ * views.
+ *
+ * Cached products are shared between requests and must not be mutated.
+ */
+@Service
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ImageService imageService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Async only so loads run outside the cache's locks; see CacheUtil
+    private final AsyncCache<String, Optional<Product>> products;
+    private final AsyncCache<ViewKey, Object> views;
+    // Bumped on every write so a view loaded concurrently with a write is never read again
+    private final AtomicLong generation = new AtomicLong();
+
+    private record ViewKey(long generation, String view, ProductFilter filter, Pageable pageable) {
+    }
+
+    public ProductCatalog(ProductRepository productRepository, MongoTemplate mongoTemplate, ImageService imageService,
+                          ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                          @Value("${bgm.catalog.cache.max-size:64MB}") DataSize maxSize,
+                          @Value("${bgm.catalog.cache.max-view-size:64MB}") DataSize maxViewSize) {
+        this.productRepository = productRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.imageService = imageService;
+        this.eventPublisher = eventPublisher;
+        this.products = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String id, Optional<Product> product) -> ProductWeigher.weigh(product))
+                .recordStats()
+                .buildAsync();
+        this.views = Caffeine.newBuilder()
+                .maximumWeight(maxViewSize.toBytes())
+                .weigher((ViewKey key, Object view) -> ProductWeigher.weigh(view))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, products.synchronous(), "catalog.products");
+        CaffeineCacheMetrics.monitor(meterRegistry, views.synchronous(), "catalog.views");
+    }
+
+    public Optional<Product> findById(String id) {
+        return CacheUtil.get(products, id, productRepository::findById);
+    }
+
+    public List<Product> findAll(ProductFilter filter) {
+        return view("list", filter, null,
+                () -> filter.isEmpty() ? productRepository.findAll() : productRepository.search(filter));
+    }
+
+    public Page<ProductSummary> findSummaries(ProductFilter filter, Pageable pageable) {
+        return view("summary", filter, pageable, () -> productRepository.searchSummaries(filter, pageable));
+    }
+
+    public List<ProductFacet> findFacets() {
+        return view("facets", null, null, productRepository::countByCategory);
+    }
+
+    public Product add(Product product) {
+        product.setImages(imageService.internalize(product.getImages()));
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.CREATED, saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Replaces the product. A version in the body must still be the stored
+     * one, or {@link OptimisticLockingFailureException} is thrown. Without a
+     * version the replace is unconditional, as before versioning, and is
+     * retried on the new version if another write gets in first.
+     */
+    public Optional<Product> update(String id, Product product) {
+        Optional<Product> existing = productRepository.findById(id);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        boolean versioned = product.getVersion() != null;
+        product.setId(id);
+        List<String> requested = product.getImages();
+        product.setImages(imageService.internalize(requested));
+        Product updated;
+        while (true) {
+            if (!versioned) {
+                product.setVersion(existing.get().getVersion());
+            }
+            try {
+                updated = productRepository.save(product);
+                break;
+            } catch (OptimisticLockingFailureException e) {
+                if (versioned) {
+                    imageService.deleteUnreferenced(storedImages(requested, product.getImages()));
+                    throw e;
+                }
+            }
+            existing = productRepository.findById(id);
+            if (existing.isEmpty()) {
+                imageService.deleteUnreferenced(storedImages(requested, product.getImages()));
+                return Optional.empty();
+            }
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, id));
+        imageService.deleteUnreferenced(removedImages(existing.get(), updated));
+        return Optional.of(updated);
+    }
+
+    /**
+     * Applies only the fields set in the patch, in a single atomic update.
+     * Returns empty if there is no such product, and throws
+     * {@link OptimisticLockingFailureException} if the patch names a version
+     * that is no longer current.
+     */
+    public Optional<Product> patch(String id, ProductPatch patch) {
+        Query target = query(where("_id").is(id));
+        if (patch.getVersion() != null) {
+            target.addCriteria(where("version").is(patch.getVersion()));
+        }
+
+        Update update = new Update().inc("version", 1);
+        setIfPresent(update, "name", patch.getName());
+        setIfPresent(update, "category", patch.getCategory());
+        setIfPresent(update, "subcategory", patch.getSubcategory());
+        setIfPresent(update, "created", patch.getCreated());
+        setIfPresent(update, "description", patch.getDescription());
+        setIfPresent(update, "specification", patch.getSpecification());
+        setIfPresent(update, "features", patch.getFeatures());
+        List<String> images = imageService.internalize(patch.getImages());
+        List<String> addImages = imageService.internalize(patch.getAddImages());
+        setIfPresent(update, "images", images);
+        if (addImages != null) {
+            update.push("images").each(addImages.toArray());
+        }
+        if (patch.getRemoveImages() != null) {
+            update.pullAll("images", patch.getRemoveImages().toArray());
+        }
+
+        // The old images are only needed to clean up after a full replacement
+        boolean replacesImages = patch.getImages() != null;
+        Product result = mongoTemplate.findAndModify(target, update,
+                FindAndModifyOptions.options().returnNew(!replacesImages), Product.class);
+        if (result == null) {
+            // Nothing was written, so images stored for this patch are not used
+            List<String> stored = new ArrayList<>(storedImages(patch.getImages(), images));
+            stored.addAll(storedImages(patch.getAddImages(), addImages));
+            imageService.deleteUnreferenced(stored);
+            if (patch.getVersion() != null && productRepository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Product " + id + " is no longer at version " + patch.getVersion());
+            }
+            return Optional.empty();
+        }
+
+        CatalogChangedEvent changed = new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, id);
+        changed.setFields(patchedFields(patch));
+        eventPublisher.publishEvent(changed);
+        if (replacesImages) {
+            Product before = result;
+            result = productRepository.findById(id).orElse(before);
+            imageService.deleteUnreferenced(removedImages(before, result));
+        } else {
+            imageService.deleteUnreferenced(patch.getRemoveImages());
+        }
+        return Optional.of(result);
+    }
+
+    public boolean delete(String id) {
+        Optional<Product> existing = productRepository.findById(id);
+        if (existing.isEmpty()) {
+            return false;
+        }
+        productRepository.deleteById(id);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.DELETED, id));
+        imageService.deleteUnreferenced(existing.get().getImages());
+        return true;
+    }
+
+    // Ahead of CatalogVersion, so responses cached under the new version are built from fresh data
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.getType() == CatalogChangedEvent.Type.BULK) {
+            products.synchronous().invalidateAll();
+        } else {
+            products.synchronous().invalidate(event.getProductId());
+        }
+        views.synchronous().invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", describe(products.synchronous()));
+        stats.put("views", describe(views.synchronous()));
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T view(String view, ProductFilter filter, Pageable pageable, Supplier<T> loader) {
+        return (T) CacheUtil.get(views, new ViewKey(generation.get(), view, filter, pageable), key -> loader.get());
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("entries", cache.estimatedSize());
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictions", stats.evictionCount());
+        description.put("evictedBytes", stats.evictionWeight());
+        return description;
+    }
+
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        }
+    }
+
+    private static Set<String> patchedFields(ProductPatch patch) {
+        Set<String> fields = new HashSet<>();
+        fields.add("version");
+        addIfPresent(fields, "name", patch.getName());
+        addIfPresent(fields, "category", patch.getCategory());
+        addIfPresent(fields, "subcategory", patch.getSubcategory());
+        addIfPresent(fields, "created", patch.getCreated());
+        addIfPresent(fields, "description", patch.getDescription());
+        addIfPresent(fields, "specification", patch.getSpecification());
+        addIfPresent(fields, "features", patch.getFeatures());
+        if (patch.getImages() != null || patch.getAddImages() != null || patch.getRemoveImages() != null) {
+            fields.add("images");
+        }
+        return fields;
+    }
+
+    private static void addIfPresent(Set<String> fields, String field, Object value) {
+        if (value != null) {
+            fields.add(field);
+        }
+    }
+
+    private static List<String> removedImages(Product before, Product after) {
+        if (before.getImages() == null) {
+            return List.of();
+        }
+        List<String> removed = new ArrayList<>(before.getImages());
+        if (after.getImages() != null) {
+            removed.removeAll(after.getImages());
+        }
+        return removed;
+    }
+
+    // The images internalize stored from embedded data, not those the request gave as URLs
+    private static List<String> storedImages(List<String> requested, List<String> internalized) {
+        if (internalized == null) {
+            return List.of();
+        }
+        List<String> stored = new ArrayList<>(internalized);
+        stored.removeAll(requested);
+        return stored;
+    }
+}
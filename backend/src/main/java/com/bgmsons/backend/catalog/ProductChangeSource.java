@@ -0,0 +1,235 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductChange;
+import com.bgmsons.backend.repository.ProductRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+
+import jakarta.annotation.PreDestroy;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds product changes into the {@link ChangeFeed}. On a replica set or
+ * sharded cluster it follows a change stream on the products collection, so
+ * writes made by other instances or directly in Mongo show up too. A
+ * standalone server has no change streams; there the feed is driven by this
+ * instance's {@link CatalogChangedEvent}s instead.
+ */
+@Component
+public class ProductChangeSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeSource.class);
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {
+    };
+    // The resume token is older than the oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final ChangeFeed changeFeed;
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean changeStreamsEnabled;
+    private final Duration retryDelay;
+    private Thread watcher;
+    private volatile boolean running;
+
+    public ProductChangeSource(ChangeFeed changeFeed, MongoTemplate mongoTemplate,
+                               ProductRepository productRepository, ObjectMapper objectMapper,
+                               @Value("${bgm.catalog.changes.change-streams:true}") boolean changeStreamsEnabled,
+                               @Value("${bgm.catalog.changes.retry-delay:5s}") Duration retryDelay) {
+        this.changeFeed = changeFeed;
+        this.mongoTemplate = mongoTemplate;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.changeStreamsEnabled = changeStreamsEnabled;
+        this.retryDelay = retryDelay;
+    }
+
+    // Waits for a running app, so startup never blocks on reaching Mongo
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!changeStreamsEnabled || !supportsChangeStreams()) {
+            logger.info("Catalogue change feed follows local writes only");
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::watch, "catalog-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Catalogue change feed follows a change stream on {}", collection());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (watcher != null) {
+            // The cursor wakes up at least once a second to notice
+            watcher.join(5000);
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (running) {
+            return;
+        }
+        switch (event.getType()) {
+            case BULK -> changeFeed.reset();
+            case DELETED -> changeFeed.append(ProductChange.Type.DELETED, event.getProductId(), null);
+            // Read from Mongo, the catalogue cache may not have been evicted yet
+            default -> productRepository.findById(event.getProductId()).ifPresent(product -> {
+                Map<String, Object> fields = fields(product);
+                if (event.getType() == CatalogChangedEvent.Type.UPDATED && event.getFields() != null) {
+                    fields.keySet().retainAll(event.getFields());
+                }
+                ProductChange.Type type = event.getType() == CatalogChangedEvent.Type.CREATED
+                        ? ProductChange.Type.CREATED
+                        : ProductChange.Type.UPDATED;
+                changeFeed.append(type, product.getId(), fields);
+            });
+        }
+    }
+
+    private boolean supportsChangeStreams() {
+        try {
+            Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+            return hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Product.class);
+    }
+
+    private void watch() {
+        BsonDocument resumeToken = null;
+        while (running) {
+            ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection())
+                    .watch()
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null && !apply(change)) {
+                        // The stream was invalidated and cannot be resumed
+                        resumeToken = null;
+                        break;
+                    }
+                    resumeToken = cursor.getResumeToken();
+                }
+            } catch (MongoException e) {
+                if (!running) {
+                    return;
+                }
+                if (e.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    resumeToken = null;
+                    changeFeed.reset();
+                }
+                logger.warn("Product change stream failed, retrying in {}: {}", retryDelay, e.toString());
+                try {
+                    Thread.sleep(retryDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns false once the stream is invalidated
+    private boolean apply(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, REPLACE -> {
+                if (change.getFullDocument() != null) {
+                    Product product = mongoTemplate.getConverter().read(Product.class, change.getFullDocument());
+                    ProductChange.Type type = change.getOperationType() == OperationType.INSERT
+                            ? ProductChange.Type.CREATED
+                            : ProductChange.Type.UPDATED;
+                    changeFeed.append(type, product.getId(), fields(product));
+                }
+            }
+            case UPDATE -> {
+                // Null when the product was deleted before the lookup; the delete follows
+                if (change.getFullDocument() != null) {
+                    Product product = mongoTemplate.getConverter().read(Product.class, change.getFullDocument());
+                    Map<String, Object> all = fields(product);
+                    Map<String, Object> fields = new LinkedHashMap<>();
+                    for (String path : changedPaths(change.getUpdateDescription())) {
+                        // "images.3" changes the images field
+                        String field = path.contains(".") ? path.substring(0, path.indexOf('.')) : path;
+                        if (all.containsKey(field)) {
+                            fields.put(field, all.get(field));
+                        }
+                    }
+                    changeFeed.append(ProductChange.Type.UPDATED, product.getId(), fields);
+                }
+            }
+            case DELETE -> changeFeed.append(ProductChange.Type.DELETED, id(change.getDocumentKey()), null);
+            case DROP, RENAME, DROP_DATABASE -> changeFeed.reset();
+            case INVALIDATE -> {
+                changeFeed.reset();
+                return false;
+            }
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> changedPaths(UpdateDescription description) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (description == null) {
+            return paths;
+        }
+        if (description.getUpdatedFields() != null) {
+            paths.addAll(description.getUpdatedFields().keySet());
+        }
+        if (description.getRemovedFields() != null) {
+            paths.addAll(description.getRemovedFields());
+        }
+        return paths;
+    }
+
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    // Top-level fields as the API serializes them, without the id
+    private Map<String, Object> fields(Product product) {
+        Map<String, Object> fields = objectMapper.convertValue(product, FIELDS);
+        fields.remove("id");
+        return fields;
+    }
+}
@@ -0,0 +1,278 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.image.ImageService;
+import com.bgmsons.backend.model.BulkImportReport;
+import com.bgmsons.backend.model.BulkImportReport.Line;
+import com.bgmsons.backend.model.BulkImportReport.Status;
+import com.bgmsons.backend.model.Product;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mongodb.bulk.BulkWriteError;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Bulk NDJSON import and export of the catalogue. Imports are read one line
+ * at a time and written in unordered bulk batches, so neither direction holds
+ * more than a batch of products in memory.
+ */
+@Service
+public class ProductImporter {
+
+    private final MongoTemplate mongoTemplate;
+    private final ImageService imageService;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final int batchSize;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private record Pending(Line line, Product product, boolean replace) {
+    }
+
+    public ProductImporter(MongoTemplate mongoTemplate, ImageService imageService, Validator validator,
+                           ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                           @Value("${bgm.catalog.bulk.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.imageService = imageService;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.reader = objectMapper.readerFor(Product.class);
+        this.writer = objectMapper.writerFor(Product.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports one product per line. Lines with an id replace (or create) that
+     * product; lines without one are inserted. A replace that names a version
+     * must match the stored one, and every replace moves the stored version
+     * on by one, so it is seen by PATCH and PUT as a new revision. Invalid
+     * and conflicting lines are reported and skipped without affecting the
+     * rest of the import. After each batch, images stored for skipped lines
+     * and images the replaced products no longer use are deleted, as on a
+     * single update.
+     */
+    public BulkImportReport importNdjson(InputStream in) throws IOException {
+        BulkImportReport report = new BulkImportReport();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            String text;
+            int number = 0;
+            while ((text = lines.readLine()) != null) {
+                number++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                Line line = new Line(number);
+                report.getLines().add(line);
+
+                Pending pending = parse(line, text);
+                if (pending == null) {
+                    report.setFailed(report.getFailed() + 1);
+                    continue;
+                }
+                batch.add(pending);
+                if (batch.size() >= batchSize) {
+                    write(batch, report);
+                }
+            }
+            write(batch, report);
+        } finally {
+            if (report.getCreated() + report.getReplaced() > 0) {
+                eventPublisher.publishEvent(CatalogChangedEvent.bulk());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Writes every product as one JSON line, streaming from a Mongo cursor.
+     */
+    public void exportNdjson(OutputStream out) throws IOException {
+        Query query = new Query().with(Sort.by("_id")).cursorBatchSize(batchSize);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                writer.writeValue(out, product);
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    private Pending parse(Line line, String text) {
+        Product product;
+        try {
+            product = reader.readValue(text);
+        } catch (JsonProcessingException e) {
+            line.setStatus(Status.INVALID);
+            line.setError(e.getOriginalMessage());
+            return null;
+        }
+
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            line.setStatus(Status.INVALID);
+            line.setError(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+
+        try {
+            product.setImages(imageService.internalize(product.getImages()));
+        } catch (ResponseStatusException e) {
+            line.setStatus(Status.INVALID);
+            line.setError(e.getReason());
+            return null;
+        }
+
+        boolean replace = product.getId() != null;
+        if (!replace) {
+            // Assigned up front so the report can name inserted products
+            product.setId(new ObjectId().toHexString());
+        }
+        line.setId(product.getId());
+        return new Pending(line, product, replace);
+    }
+
+    private void write(List<Pending> batch, BulkImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, Product> stored = storedProducts(batch);
+        // Images of rejected lines and those the replaced products had, deleted once no product uses them
+        Set<String> released = new LinkedHashSet<>();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        List<Pending> written = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            Product product = pending.product();
+            Product existing = pending.replace() ? stored.get(product.getId()) : null;
+            if (existing == null) {
+                // New, or an id that is not in the catalogue yet
+                product.setVersion(0L);
+                operations.insert(product);
+            } else if (product.getVersion() != null && !product.getVersion().equals(versionOf(existing))) {
+                conflict(pending.line(), versionOf(existing), report);
+                addImages(released, product);
+                continue;
+            } else {
+                // Matched on the version read above; a write in between makes the upsert
+                // collide with the existing _id, which is reported as a conflict
+                long current = versionOf(existing);
+                product.setVersion(current + 1);
+                operations.replaceOne(new Query(where("_id").is(product.getId()).and("version").is(current)), product,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            written.add(pending);
+        }
+
+        List<BulkWriteError> errors = List.of();
+        if (!written.isEmpty()) {
+            try {
+                operations.execute();
+            } catch (BulkOperationException e) {
+                errors = e.getErrors();
+            }
+        }
+
+        BulkWriteError[] failures = new BulkWriteError[written.size()];
+        for (BulkWriteError error : errors) {
+            failures[error.getIndex()] = error;
+        }
+        for (int i = 0; i < written.size(); i++) {
+            Pending pending = written.get(i);
+            Line line = pending.line();
+            Product existing = pending.replace() ? stored.get(pending.product().getId()) : null;
+            if (failures[i] != null) {
+                if (existing != null && failures[i].getCode() == DUPLICATE_KEY) {
+                    conflict(line, null, report);
+                } else {
+                    line.setStatus(Status.FAILED);
+                    line.setError(failures[i].getMessage());
+                    report.setFailed(report.getFailed() + 1);
+                }
+                addImages(released, pending.product());
+            } else if (existing != null) {
+                line.setStatus(Status.REPLACED);
+                report.setReplaced(report.getReplaced() + 1);
+                addImages(released, existing);
+            } else {
+                line.setStatus(Status.CREATED);
+                report.setCreated(report.getCreated() + 1);
+            }
+        }
+        batch.clear();
+        imageService.deleteUnreferenced(released);
+    }
+
+    // Current version and images of the batch's existing products, in one query
+    private Map<String, Product> storedProducts(List<Pending> batch) {
+        List<String> ids = batch.stream().filter(Pending::replace).map(pending -> pending.product().getId()).toList();
+        Map<String, Product> products = new HashMap<>();
+        if (ids.isEmpty()) {
+            return products;
+        }
+        Query query = new Query(where("_id").in(ids));
+        query.fields().include("version", "images");
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+
+    private static long versionOf(Product product) {
+        return product.getVersion() != null ? product.getVersion() : 0L;
+    }
+
+    private static void addImages(Set<String> images, Product product) {
+        if (product.getImages() != null) {
+            images.addAll(product.getImages());
+        }
+    }
+
+    private static void conflict(Line line, Long current, BulkImportReport report) {
+        line.setStatus(Status.CONFLICT);
+        line.setError(current != null
+                ? "Product is at version " + current
+                : "Product was changed during the import");
+        report.setFailed(report.getFailed() + 1);
+    }
+}
@@ -0,0 +1,185 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.PopularProduct;
+import com.bgmsons.backend.model.ProductStats;
+import com.bgmsons.backend.model.ProductSummary;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Per-product view and enquiry counters. Hits are added to in-memory
+ * {@link LongAdder}s and flushed every few seconds as one unordered bulk
+ * write with a single {@code $inc} upsert per product, so a crash loses at
+ * most one flush interval of counts. The popular products ranking is read
+ * from the flushed totals on a fixed schedule, never per request.
+ */
+@Service
+public class ProductPopularity {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPopularity.class);
+
+    public enum Metric {
+        VIEWS("views"),
+        ENQUIRIES("enquiries");
+
+        private final String field;
+
+        Metric(String field) {
+            this.field = field;
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalog productCatalog;
+    private final int rankingSize;
+    private final Map<String, Counts> counts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private volatile Map<Metric, List<PopularProduct>> ranking = Map.of();
+
+    private static final class Counts {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder enquiries = new LongAdder();
+    }
+
+    private record Delta(String productId, long views, long enquiries) {
+    }
+
+    public ProductPopularity(MongoTemplate mongoTemplate, ProductCatalog productCatalog,
+                             @Value("${bgm.catalog.popularity.flush-interval:5s}") Duration flushInterval,
+                             @Value("${bgm.catalog.popularity.ranking-interval:1m}") Duration rankingInterval,
+                             @Value("${bgm.catalog.popularity.ranking-size:50}") int rankingSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCatalog = productCatalog;
+        this.rankingSize = rankingSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-popularity");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::rank, rankingInterval.toMillis(), rankingInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Called with products that were found, so every key is a real product
+    public void recordView(String productId) {
+        counts.computeIfAbsent(productId, id -> new Counts()).views.increment();
+    }
+
+    // The id comes from the visitor, so unknown products are not counted
+    public void recordEnquiry(String productId) {
+        if (productId == null || productCatalog.findById(productId).isEmpty()) {
+            return;
+        }
+        counts.computeIfAbsent(productId, id -> new Counts()).enquiries.increment();
+    }
+
+    public List<PopularProduct> popular(Metric metric, int limit) {
+        List<PopularProduct> products = ranking.getOrDefault(metric, List.of());
+        return products.subList(0, Math.min(limit, products.size()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(this::rank);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getType() == CatalogChangedEvent.Type.DELETED) {
+            counts.remove(event.getProductId());
+            executor.execute(() -> {
+                mongoTemplate.remove(query(where("_id").is(event.getProductId())), ProductStats.class);
+                rank();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private synchronized void flush() {
+        List<Delta> deltas = new ArrayList<>();
+        counts.forEach((productId, count) -> {
+            // sumThenReset never loses an increment; one racing with it is counted in the next flush
+            long views = count.views.sumThenReset();
+            long enquiries = count.enquiries.sumThenReset();
+            if (views != 0 || enquiries != 0) {
+                deltas.add(new Delta(productId, views, enquiries));
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductStats.class);
+        for (Delta delta : deltas) {
+            bulk.upsert(query(where("_id").is(delta.productId())),
+                    new Update().inc("views", delta.views()).inc("enquiries", delta.enquiries()));
+        }
+        try {
+            bulk.execute();
+        } catch (DataAccessException e) {
+            // Put the counts back for the next attempt
+            for (Delta delta : deltas) {
+                Counts count = counts.computeIfAbsent(delta.productId(), id -> new Counts());
+                count.views.add(delta.views());
+                count.enquiries.add(delta.enquiries());
+            }
+            logger.warn("Could not flush popularity counts for {} products: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    private void rank() {
+        Map<Metric, List<PopularProduct>> updated = new EnumMap<>(Metric.class);
+        try {
+            for (Metric metric : Metric.values()) {
+                Query top = new Query(where(metric.field).gt(0))
+                        .with(Sort.by(Sort.Direction.DESC, metric.field))
+                        .limit(rankingSize);
+                List<PopularProduct> products = new ArrayList<>();
+                for (ProductStats stats : mongoTemplate.find(top, ProductStats.class)) {
+                    productCatalog.findById(stats.getProductId()).ifPresent(product -> products.add(
+                            new PopularProduct(ProductSummary.of(product), stats.getViews(), stats.getEnquiries())));
+                }
+                updated.put(metric, List.copyOf(products));
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not refresh the popular products ranking: {}", e.getMessage());
+            return;
+        }
+        ranking = updated;
+    }
+}
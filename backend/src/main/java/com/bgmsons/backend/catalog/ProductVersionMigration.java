@@ -0,0 +1,46 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.Product;
+import com.mongodb.client.result.UpdateResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Gives products saved before {@link Product#getVersion()} existed a starting
+ * version. Without one, Spring Data would treat them as new on the next save.
+ * Runs on every start and only touches documents that still lack the field.
+ */
+@Component
+public class ProductVersionMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductVersionMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductVersionMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            UpdateResult result = mongoTemplate.updateMulti(query(where("version").exists(false)),
+                    Update.update("version", 0L), Product.class);
+            if (result.getModifiedCount() > 0) {
+                logger.info("Initialized version of {} products", result.getModifiedCount());
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not initialize product versions: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductSummary;
+
+import org.springframework.data.domain.Page;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Rough heap size of cached catalogue values, so the caches can be bounded
+ * in bytes rather than entries.
+ */
+final class ProductWeigher {
+
+    private static final int OBJECT_OVERHEAD = 64;
+
+    private ProductWeigher() {
+    }
+
+    static int weigh(Object value) {
+        if (value instanceof Optional<?> optional) {
+            return optional.map(ProductWeigher::weigh).orElse(OBJECT_OVERHEAD);
+        }
+        if (value instanceof Page<?> page) {
+            return weigh(page.getContent());
+        }
+        if (value instanceof Product product) {
+            return OBJECT_OVERHEAD + chars(product.getId()) + chars(product.getName()) + chars(product.getCategory())
+                    + chars(product.getSubcategory()) + chars(product.getImages()) + chars(product.getDescription())
+                    + chars(product.getSpecification()) + chars(product.getFeatures());
+        }
+        if (value instanceof ProductSummary summary) {
+            return OBJECT_OVERHEAD + chars(summary.getId()) + chars(summary.getName()) + chars(summary.getCategory())
+                    + chars(summary.getSubcategory()) + chars(summary.getImages());
+        }
+        if (value instanceof Collection<?> values) {
+            long total = OBJECT_OVERHEAD;
+            for (Object element : values) {
+                total += weigh(element);
+            }
+            return (int) Math.min(Integer.MAX_VALUE, total);
+        }
+        return OBJECT_OVERHEAD;
+    }
+
+    private static int chars(String value) {
+        return value != null ? 40 + value.length() * 2 : 0;
+    }
+
+    private static int chars(List<String> values) {
+        if (values == null) {
+            return 0;
+        }
+        int total = OBJECT_OVERHEAD;
+        for (String value : values) {
+            total += chars(value);
+        }
+        return total;
+    }
+}
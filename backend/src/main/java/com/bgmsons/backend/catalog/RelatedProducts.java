@@ -0,0 +1,503 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductSummary;
+import com.bgmsons.backend.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Precomputed "related products" for the detail page. Every product is a
+ * TF-IDF vector over the words of its name, features, specification and
+ * description; two products score their cosine similarity plus a boost for
+ * a shared category and another for a shared subcategory. The top neighbours
+ * of every product are kept in memory, so a request is a map lookup.
+ *
+ * The index is built in the background once the application is ready and on
+ * bulk imports. Single product writes only rescore the written product and
+ * the products whose lists it enters or leaves. Word weights (IDF) are taken
+ * from the document frequencies at the time a product is indexed. All writes
+ * run on one thread; queries read concurrently and may briefly lag a write.
+ */
+@Component
+public class RelatedProducts {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedProducts.class);
+    private static final Set<String> INDEXED_FIELDS =
+            Set.of("name", "category", "subcategory", "description", "specification", "features", "images");
+
+    // Term frequency given to a word by each field it appears in
+    private static final float NAME = 3;
+    private static final float FEATURES = 2;
+    private static final float SPECIFICATION = 1;
+    private static final float DESCRIPTION = 1;
+
+    private static final float CATEGORY_BOOST = 0.2f;
+    private static final float SUBCATEGORY_BOOST = 0.2f;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final int size;
+    private final int maxCandidates;
+    private final ExecutorService executor;
+    private volatile Index index = new Index();
+
+    // terms is sorted by term id, weights[i] belongs to terms[i], the vector has unit length
+    private record Doc(int slot, String id, String category, String subcategory, int[] terms, float[] weights) {
+
+        // Identity is enough, and much cheaper in the postings sets
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return slot;
+        }
+    }
+
+    // Best first
+    private record Neighbours(String[] ids, float[] scores) {
+        private static final Neighbours NONE = new Neighbours(new String[0], new float[0]);
+
+        int indexOf(String id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i].equals(id)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private record Scored(String id, float score) {
+    }
+
+    /**
+     * Everything but {@code related} and {@code summaries} is only touched by
+     * the index thread.
+     */
+    private static final class Index {
+        private final Map<String, Doc> docs = new HashMap<>();
+        private final Map<String, Integer> termIds = new HashMap<>();
+        // By term id, with the term itself so the id can be given back once no doc uses it
+        private final List<Set<Doc>> postings = new ArrayList<>();
+        private final List<String> terms = new ArrayList<>();
+        private final Deque<Integer> freeTermIds = new ArrayDeque<>();
+        // Keyed by category and by category + subcategory
+        private final Map<String, Set<Doc>> groups = new HashMap<>();
+        private final Map<String, Neighbours> neighbours = new HashMap<>();
+        private final Map<String, Set<String>> referrers = new HashMap<>();
+        private final ConcurrentHashMap<String, String[]> related = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, ProductSummary> summaries = new ConcurrentHashMap<>();
+        // Candidate marks by doc slot; a slot is marked when it holds the current stamp
+        private int[] marks = new int[0];
+        private int stamp;
+        private int slots;
+        // Slots of deleted docs, reused before a new one is opened; an update keeps its doc's slot
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    }
+
+    public RelatedProducts(MongoTemplate mongoTemplate, ProductRepository productRepository,
+                           @Value("${bgm.catalog.related.size:12}") int size,
+                           @Value("${bgm.catalog.related.max-candidates:1000}") int maxCandidates) {
+        this.mongoTemplate = mongoTemplate;
+        this.productRepository = productRepository;
+        this.size = size;
+        this.maxCandidates = maxCandidates;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "related-products");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(this::rebuild);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getFields() != null && Collections.disjoint(event.getFields(), INDEXED_FIELDS)) {
+            return;
+        }
+        switch (event.getType()) {
+            case BULK -> executor.execute(this::rebuild);
+            case DELETED -> executor.execute(() -> remove(index, event.getProductId()));
+            default -> executor.execute(() -> productRepository.findById(event.getProductId())
+                    .ifPresent(product -> update(index, product)));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Up to {@code limit} products related to the given one, most related
+     * first. Empty for unknown products and while the index is being built.
+     */
+    public List<ProductSummary> related(String productId, int limit) {
+        Index current = index;
+        String[] ids = current.related.get(productId);
+        if (ids == null) {
+            return List.of();
+        }
+        List<ProductSummary> products = new ArrayList<>(Math.min(limit, ids.length));
+        for (String id : ids) {
+            if (products.size() >= limit) {
+                break;
+            }
+            ProductSummary summary = current.summaries.get(id);
+            if (summary != null) {
+                products.add(summary);
+            }
+        }
+        return products;
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        Query query = new Query();
+        query.fields().include("name", "category", "subcategory", "description", "specification", "features")
+                .slice("images", 1);
+
+        Index built = new Index();
+        Map<String, Map<String, Float>> frequencies = new LinkedHashMap<>();
+        Map<String, Product> products = new HashMap<>();
+        try (Stream<Product> stream = mongoTemplate.stream(query, Product.class)) {
+            stream.forEach(product -> {
+                Map<String, Float> terms = terms(product);
+                frequencies.put(product.getId(), terms);
+                products.put(product.getId(), product);
+                terms.keySet().forEach(term -> termId(built, term));
+            });
+        } catch (RuntimeException e) {
+            logger.error("Could not build the related products index: {}", e.toString());
+            return;
+        }
+
+        // Document frequencies first, so every vector is weighted against the whole catalogue
+        int[] documentFrequency = new int[built.termIds.size()];
+        frequencies.values().forEach(terms -> terms.keySet()
+                .forEach(term -> documentFrequency[built.termIds.get(term)]++));
+        frequencies.forEach((id, terms) -> {
+            Product product = products.get(id);
+            add(built, doc(built, slot(built), product, terms, term -> documentFrequency[term], frequencies.size()));
+            built.summaries.put(id, ProductSummary.of(product));
+        });
+        for (Doc doc : built.docs.values()) {
+            setNeighbours(built, doc.id(), top(built, doc, null));
+        }
+        index = built;
+        logger.info("Related products index built: {} products, {} terms in {} ms", built.docs.size(),
+                built.termIds.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void update(Index index, Product product) {
+        Doc old = index.docs.get(product.getId());
+        if (old != null) {
+            unlink(index, old);
+        }
+        Map<String, Float> terms = terms(product);
+        terms.keySet().forEach(term -> termId(index, term));
+        // Counting the product itself, which is not indexed yet
+        Doc doc = doc(index, old != null ? old.slot() : slot(index), product, terms,
+                term -> index.postings.get(term).size() + 1, index.docs.size() + 1);
+        add(index, doc);
+        index.summaries.put(doc.id(), ProductSummary.of(product));
+
+        Map<String, Float> scores = new HashMap<>();
+        setNeighbours(index, doc.id(), top(index, doc, scores));
+        // The score is symmetric, so the same pass tells which other lists the product now belongs in
+        scores.forEach((otherId, score) -> offer(index, otherId, doc.id(), score));
+        for (String referrer : List.copyOf(index.referrers.getOrDefault(doc.id(), Set.of()))) {
+            if (!scores.containsKey(referrer)) {
+                recompute(index, referrer);
+            }
+        }
+    }
+
+    private void remove(Index index, String productId) {
+        Doc doc = index.docs.get(productId);
+        if (doc == null) {
+            return;
+        }
+        unlink(index, doc);
+        index.freeSlots.push(doc.slot());
+        index.summaries.remove(productId);
+        setNeighbours(index, productId, null);
+        for (String referrer : List.copyOf(index.referrers.getOrDefault(productId, Set.of()))) {
+            recompute(index, referrer);
+        }
+        index.referrers.remove(productId);
+    }
+
+    // Puts a product into another product's list if it scores high enough
+    private void offer(Index index, String productId, String candidateId, float score) {
+        Neighbours current = index.neighbours.getOrDefault(productId, Neighbours.NONE);
+        int position = current.indexOf(candidateId);
+        if (position >= 0 && score < current.scores()[position] && current.ids().length >= size) {
+            // It dropped, and some product outside the list may now beat it
+            recompute(index, productId);
+            return;
+        }
+        if (position < 0 && current.ids().length >= size && score <= current.scores()[current.ids().length - 1]) {
+            return;
+        }
+        List<Scored> scored = new ArrayList<>(current.ids().length + 1);
+        for (int i = 0; i < current.ids().length; i++) {
+            if (i != position) {
+                scored.add(new Scored(current.ids()[i], current.scores()[i]));
+            }
+        }
+        scored.add(new Scored(candidateId, score));
+        scored.sort(Comparator.comparing(Scored::score).reversed());
+        setNeighbours(index, productId, scored.subList(0, Math.min(size, scored.size())));
+    }
+
+    private void recompute(Index index, String productId) {
+        Doc doc = index.docs.get(productId);
+        if (doc != null) {
+            setNeighbours(index, productId, top(index, doc, null));
+        }
+    }
+
+    /**
+     * The best scoring products for a doc. Candidates are the products
+     * sharing its rarest words, then its subcategory and category, capped at
+     * max-candidates. Every candidate score is put in {@code scores} when it
+     * is not null.
+     */
+    private List<Scored> top(Index index, Doc doc, Map<String, Float> scores) {
+        List<Doc> candidates = new ArrayList<>();
+        if (index.marks.length < index.slots) {
+            index.marks = Arrays.copyOf(index.marks, Math.max(index.slots, index.marks.length * 2));
+        }
+        int stamp = ++index.stamp;
+        index.marks[doc.slot()] = stamp;
+        Integer[] rarestFirst = new Integer[doc.terms().length];
+        for (int i = 0; i < rarestFirst.length; i++) {
+            rarestFirst[i] = doc.terms()[i];
+        }
+        Arrays.sort(rarestFirst, Comparator.comparingInt(term -> index.postings.get(term).size()));
+        collect:
+        {
+            for (int term : rarestFirst) {
+                if (!addCandidates(index, stamp, candidates, index.postings.get(term))) {
+                    break collect;
+                }
+            }
+            if (!addCandidates(index, stamp, candidates, index.groups.getOrDefault(subcategoryKey(doc), Set.of()))) {
+                break collect;
+            }
+            addCandidates(index, stamp, candidates, index.groups.getOrDefault(categoryKey(doc), Set.of()));
+        }
+
+        PriorityQueue<Scored> top = new PriorityQueue<>(size + 1, Comparator.comparing(Scored::score));
+        for (Doc candidate : candidates) {
+            float score = score(doc, candidate);
+            if (score <= 0) {
+                continue;
+            }
+            if (scores != null) {
+                scores.put(candidate.id(), score);
+            }
+            if (top.size() >= size && score <= top.peek().score()) {
+                continue;
+            }
+            top.add(new Scored(candidate.id(), score));
+            if (top.size() > size) {
+                top.poll();
+            }
+        }
+        List<Scored> best = new ArrayList<>(top);
+        best.sort(Comparator.comparing(Scored::score).reversed());
+        return best;
+    }
+
+    // False once the cap is reached
+    private boolean addCandidates(Index index, int stamp, List<Doc> candidates, Set<Doc> docs) {
+        for (Doc doc : docs) {
+            if (candidates.size() >= maxCandidates) {
+                return false;
+            }
+            if (index.marks[doc.slot()] != stamp) {
+                index.marks[doc.slot()] = stamp;
+                candidates.add(doc);
+            }
+        }
+        return true;
+    }
+
+    private static float score(Doc a, Doc b) {
+        float score = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.terms().length && j < b.terms().length) {
+            if (a.terms()[i] == b.terms()[j]) {
+                score += a.weights()[i++] * b.weights()[j++];
+            } else if (a.terms()[i] < b.terms()[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        if (a.category() != null && a.category().equalsIgnoreCase(b.category())) {
+            score += CATEGORY_BOOST;
+            if (a.subcategory() != null && a.subcategory().equalsIgnoreCase(b.subcategory())) {
+                score += SUBCATEGORY_BOOST;
+            }
+        }
+        return score;
+    }
+
+    // Replaces a product's list and keeps the reverse links in step; null removes it
+    private static void setNeighbours(Index index, String productId, List<Scored> scored) {
+        Neighbours old = index.neighbours.remove(productId);
+        if (old != null) {
+            for (String id : old.ids()) {
+                Set<String> referrers = index.referrers.get(id);
+                if (referrers != null) {
+                    referrers.remove(productId);
+                }
+            }
+        }
+        if (scored == null) {
+            index.related.remove(productId);
+            return;
+        }
+        String[] ids = new String[scored.size()];
+        float[] scores = new float[scored.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = scored.get(i).id();
+            scores[i] = scored.get(i).score();
+            index.referrers.computeIfAbsent(ids[i], id -> new HashSet<>()).add(productId);
+        }
+        index.neighbours.put(productId, new Neighbours(ids, scores));
+        index.related.put(productId, ids);
+    }
+
+    private static void add(Index index, Doc doc) {
+        index.docs.put(doc.id(), doc);
+        for (int term : doc.terms()) {
+            index.postings.get(term).add(doc);
+        }
+        index.groups.computeIfAbsent(categoryKey(doc), key -> new LinkedHashSet<>()).add(doc);
+        index.groups.computeIfAbsent(subcategoryKey(doc), key -> new LinkedHashSet<>()).add(doc);
+    }
+
+    private static void unlink(Index index, Doc doc) {
+        index.docs.remove(doc.id());
+        for (int term : doc.terms()) {
+            Set<Doc> docs = index.postings.get(term);
+            docs.remove(doc);
+            if (docs.isEmpty()) {
+                index.termIds.remove(index.terms.get(term));
+                index.terms.set(term, null);
+                index.freeTermIds.push(term);
+            }
+        }
+        index.groups.getOrDefault(categoryKey(doc), Set.of()).remove(doc);
+        index.groups.getOrDefault(subcategoryKey(doc), Set.of()).remove(doc);
+    }
+
+    private static String categoryKey(Doc doc) {
+        return String.valueOf(doc.category()).toLowerCase(Locale.ROOT);
+    }
+
+    private static String subcategoryKey(Doc doc) {
+        return categoryKey(doc) + "/" + String.valueOf(doc.subcategory()).toLowerCase(Locale.ROOT);
+    }
+
+    private static int termId(Index index, String term) {
+        return index.termIds.computeIfAbsent(term, key -> {
+            Integer free = index.freeTermIds.poll();
+            if (free != null) {
+                // Its postings are empty
+                index.terms.set(free, key);
+                return free;
+            }
+            index.postings.add(new LinkedHashSet<>());
+            index.terms.add(key);
+            return index.postings.size() - 1;
+        });
+    }
+
+    private static int slot(Index index) {
+        Integer free = index.freeSlots.poll();
+        return free != null ? free : index.slots++;
+    }
+
+    // Term frequencies, summed over the fields a word appears in
+    private static Map<String, Float> terms(Product product) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, product.getName(), NAME);
+        addTerms(terms, product.getFeatures(), FEATURES);
+        addTerms(terms, product.getSpecification(), SPECIFICATION);
+        addTerms(terms, product.getDescription(), DESCRIPTION);
+        return terms;
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float frequency) {
+        for (String token : SuggestIndex.tokens(text)) {
+            // Single letters and bare numbers ("2", "100") relate unrelated products
+            if (token.length() > 1 && !token.chars().allMatch(Character::isDigit)) {
+                terms.merge(token, frequency, Float::sum);
+            }
+        }
+    }
+
+    // Unit length TF-IDF vector, as sorted term ids and their weights
+    private static Doc doc(Index index, int slot, Product product, Map<String, Float> terms,
+                           IntUnaryOperator documentFrequency, int documents) {
+        int[] ids = terms.keySet().stream().mapToInt(index.termIds::get).sorted().toArray();
+        Map<Integer, Float> frequencies = new HashMap<>();
+        terms.forEach((term, frequency) -> frequencies.put(index.termIds.get(term), frequency));
+        float[] weights = new float[ids.length];
+        double norm = 0;
+        for (int i = 0; i < ids.length; i++) {
+            double idf = Math.log((1.0 + documents) / (1.0 + documentFrequency.applyAsInt(ids[i]))) + 1;
+            weights[i] = (float) (frequencies.get(ids[i]) * idf);
+            norm += weights[i] * weights[i];
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= (float) norm;
+        }
+        return new Doc(slot, product.getId(), product.getCategory(), product.getSubcategory(), ids, weights);
+    }
+}
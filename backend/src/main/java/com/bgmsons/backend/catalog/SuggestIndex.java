@@ -0,0 +1,282 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductSummary;
+import com.bgmsons.backend.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index for typeahead over product name, category,
+ * subcategory and features. Normalized tokens are kept in a sorted map, each
+ * pointing at the ids of the products that contain it, so a prefix is a
+ * range scan and a suggestion never touches Mongo.
+ *
+ * The index is built in the background once the application is ready and
+ * kept current from {@link CatalogChangedEvent}s. All writes run on one
+ * thread; queries read concurrently and may briefly lag a write.
+ */
+@Component
+public class SuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestIndex.class);
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // Field bits recorded per token, highest ranked first
+    private static final int NAME = 8;
+    private static final int CATEGORY = 4;
+    private static final int SUBCATEGORY = 2;
+    private static final int FEATURES = 1;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final int maxCandidates;
+    private final ExecutorService executor;
+    private volatile Index index = new Index(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+
+    private record Index(ConcurrentSkipListMap<String, String[]> postings, ConcurrentHashMap<String, Entry> entries) {
+    }
+
+    // tokens is sorted, fields[i] holds the field bits of tokens[i]
+    private record Entry(ProductSummary summary, String name, String[] tokens, byte[] fields) {
+    }
+
+    private record Scored(Entry entry, int score) {
+    }
+
+    public SuggestIndex(MongoTemplate mongoTemplate, ProductRepository productRepository,
+                        @Value("${bgm.catalog.suggest.max-candidates:1000}") int maxCandidates) {
+        this.mongoTemplate = mongoTemplate;
+        this.productRepository = productRepository;
+        this.maxCandidates = maxCandidates;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "suggest-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(this::rebuild);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getType()) {
+            case BULK -> executor.execute(this::rebuild);
+            case DELETED -> executor.execute(() -> remove(index, event.getProductId()));
+            default -> executor.execute(() -> productRepository.findById(event.getProductId())
+                    .ifPresent(product -> {
+                        remove(index, product.getId());
+                        add(index, entry(product));
+                    }));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Up to {@code limit} products matching every word of the query, as a
+     * whole word or a prefix, best first. Names that start with the query rank
+     * first; then matches in the name rank above category, subcategory and
+     * features, and whole words above prefixes.
+     */
+    public List<ProductSummary> suggest(String query, int limit) {
+        String[] terms = tokens(query).toArray(new String[0]);
+        if (terms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        String phrase = String.join(" ", terms);
+        // The longest word usually has the fewest products to check
+        String driver = Arrays.stream(terms).max(Comparator.comparingInt(String::length)).orElseThrow();
+
+        Index current = index;
+        Comparator<Scored> ranking = Comparator.comparingInt(Scored::score)
+                .thenComparing(scored -> scored.entry().name().length(), Comparator.reverseOrder())
+                .thenComparing(scored -> scored.entry().name(), Comparator.reverseOrder());
+        PriorityQueue<Scored> top = new PriorityQueue<>(limit + 1, ranking);
+        Set<String> seen = new HashSet<>();
+        int visited = 0;
+        scan:
+        for (String[] ids : current.postings().subMap(driver, true, driver + Character.MAX_VALUE, false).values()) {
+            for (String id : ids) {
+                if (!seen.add(id)) {
+                    continue;
+                }
+                Entry entry = current.entries().get(id);
+                int score = entry != null ? score(entry, terms, phrase) : 0;
+                if (score > 0) {
+                    top.add(new Scored(entry, score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+                if (++visited >= maxCandidates) {
+                    break scan;
+                }
+            }
+        }
+
+        List<ProductSummary> suggestions = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            suggestions.add(top.poll().entry().summary());
+        }
+        Collections.reverse(suggestions);
+        return suggestions;
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        Query query = new Query();
+        query.fields().include("name", "category", "subcategory", "features").slice("images", 1);
+
+        Map<String, List<String>> postings = new HashMap<>();
+        ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(product -> {
+                Entry entry = entry(product);
+                entries.put(entry.summary().getId(), entry);
+                for (String token : entry.tokens()) {
+                    postings.computeIfAbsent(token, key -> new ArrayList<>()).add(entry.summary().getId());
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Could not build the suggest index: {}", e.toString());
+            return;
+        }
+
+        ConcurrentSkipListMap<String, String[]> sorted = new ConcurrentSkipListMap<>();
+        postings.forEach((token, ids) -> sorted.put(token, ids.toArray(new String[0])));
+        index = new Index(sorted, entries);
+        logger.info("Suggest index built: {} products, {} tokens in {} ms", entries.size(), sorted.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void add(Index index, Entry entry) {
+        String id = entry.summary().getId();
+        index.entries().put(id, entry);
+        for (String token : entry.tokens()) {
+            index.postings().merge(token, new String[]{id}, (ids, added) -> {
+                String[] copy = Arrays.copyOf(ids, ids.length + 1);
+                copy[ids.length] = id;
+                return copy;
+            });
+        }
+    }
+
+    private static void remove(Index index, String id) {
+        Entry entry = index.entries().remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String token : entry.tokens()) {
+            index.postings().computeIfPresent(token, (key, ids) -> {
+                String[] rest = Arrays.stream(ids).filter(other -> !other.equals(id)).toArray(String[]::new);
+                return rest.length > 0 ? rest : null;
+            });
+        }
+    }
+
+    private static Entry entry(Product product) {
+        TreeMap<String, Integer> fields = new TreeMap<>();
+        addTokens(fields, product.getName(), NAME);
+        addTokens(fields, product.getCategory(), CATEGORY);
+        addTokens(fields, product.getSubcategory(), SUBCATEGORY);
+        addTokens(fields, product.getFeatures(), FEATURES);
+
+        String[] tokens = fields.keySet().toArray(new String[0]);
+        byte[] bits = new byte[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            bits[i] = fields.get(tokens[i]).byteValue();
+        }
+
+        return new Entry(ProductSummary.of(product), String.join(" ", tokens(product.getName())), tokens, bits);
+    }
+
+    private static void addTokens(Map<String, Integer> fields, String text, int field) {
+        for (String token : tokens(text)) {
+            fields.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    // Lower-cased words with accents stripped, in order and without repeats
+    static Set<String> tokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String token : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Zero unless every term matches a token of the product
+    private static int score(Entry entry, String[] terms, String phrase) {
+        int score = entry.name().startsWith(phrase) ? 2 * NAME : 0;
+        for (String term : terms) {
+            int best = 0;
+            int i = Arrays.binarySearch(entry.tokens(), term);
+            for (i = i >= 0 ? i : -i - 1; i < entry.tokens().length && entry.tokens()[i].startsWith(term); i++) {
+                int weight = weight(entry.fields()[i]) * (entry.tokens()[i].length() == term.length() ? 2 : 1);
+                best = Math.max(best, weight);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static int weight(int fields) {
+        if ((fields & NAME) != 0) {
+            return 8;
+        }
+        if ((fields & CATEGORY) != 0) {
+            return 4;
+        }
+        if ((fields & SUBCATEGORY) != 0) {
+            return 3;
+        }
+        return 1;
+    }
+}
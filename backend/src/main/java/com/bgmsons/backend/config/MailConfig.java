@@ -0,0 +1,23 @@
+package com.bgmsons.backend.config;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+
+/**
+ * Keeps the mail stack out of startup. The sender is created, and Jakarta
+ * Mail loaded, when the enquiry dispatcher first sends something.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MailConfig {
+
+    @Bean
+    static BeanFactoryPostProcessor lazyMailSender() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanNamesForType(JavaMailSender.class, true, false)) {
+                beanFactory.getBeanDefinition(name).setLazyInit(true);
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.bgmsons.backend.config;
+
+import com.bgmsons.backend.model.EnquiryJob;
+import com.bgmsons.backend.model.EnquiryRollup;
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductStats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the document classes. Spring Boot leaves
+ * automatic index creation off, so they are ensured once the app is ready.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexConfig.class);
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Product.class, EnquiryJob.class, ProductStats.class,
+            EnquiryRollup.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mongoMappingContext;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoMappingContext = mongoMappingContext;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        try {
+            for (Class<?> document : INDEXED_DOCUMENTS) {
+                IndexOperations indexes = mongoTemplate.indexOps(document);
+                resolver.resolveIndexFor(document).forEach(indexes::ensureIndex);
+            }
+
+            // GridFS image store looks up uploads by content hash to skip duplicates
+            mongoTemplate.indexOps("fs.files").ensureIndex(new Index("metadata.sha256", Sort.Direction.ASC));
+        } catch (DataAccessException e) {
+            logger.warn("Could not ensure indexes: {}", e.getMessage());
+        }
+    }
+}
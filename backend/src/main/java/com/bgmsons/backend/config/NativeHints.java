@@ -0,0 +1,37 @@
+package com.bgmsons.backend.config;
+
+import com.bgmsons.backend.model.Enquiry;
+import com.bgmsons.backend.model.EnquiryCount;
+import com.bgmsons.backend.model.EnquiryRollup;
+import com.bgmsons.backend.model.PageResponse;
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductChange;
+import com.bgmsons.backend.model.ProductFacet;
+import com.bgmsons.backend.model.ProductStats;
+import com.bgmsons.backend.model.ProductSummary;
+
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints for a GraalVM native image that Spring AOT cannot infer. Controller
+ * signatures and repository entities are covered already; these types are
+ * serialized directly through the ObjectMapper or mapped without a
+ * repository, and the mail template is read from the classpath.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHints.Resources.class)
+@RegisterReflectionForBinding({Product.class, ProductSummary.class, ProductFacet.class, PageResponse.class,
+        ProductChange.class, ProductStats.class, Enquiry.class, EnquiryRollup.class, EnquiryCount.class})
+public class NativeHints {
+
+    static class Resources implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("enquiry-template.html");
+        }
+    }
+}
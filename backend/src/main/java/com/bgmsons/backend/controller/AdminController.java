@@ -1,12 +1,26 @@
 package com.bgmsons.backend.controller;
 
+import com.bgmsons.backend.auth.AdminPrincipalCache;
+import com.bgmsons.backend.auth.LoginThrottle;
+import com.bgmsons.backend.auth.TokenVerifier;
+import com.bgmsons.backend.catalog.ProductCatalog;
+import com.bgmsons.backend.mail.EnquiryQueue;
+import com.bgmsons.backend.mail.EnquiryStats;
+import com.bgmsons.backend.model.EnquiryRollup;
 import com.bgmsons.backend.util.JwtUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,10 +32,37 @@ public class AdminController {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private TokenVerifier tokenVerifier;
+
+    @Autowired
+    private AdminPrincipalCache adminPrincipalCache;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    @Autowired
+    private EnquiryQueue enquiryQueue;
+
+    @Autowired
+    private EnquiryStats enquiryStats;
+
     @PostMapping("/login")
-    public ResponseEntity<?> adminLogin(@RequestBody Map<String, String> loginRequest) {
+    public ResponseEntity<?> adminLogin(@RequestBody Map<String, String> loginRequest, HttpServletRequest request) {
         String username = loginRequest.get("username");
         String password = loginRequest.get("password");
+
+        long retryAfter = loginThrottle.acquire(request.getRemoteAddr(), username);
+        if (retryAfter > 0) {
+            return tooManyAttempts(retryAfter);
+        }
+        if (!loginThrottle.tryEnter()) {
+            return tooManyAttempts(1);
+        }
+
         UsernamePasswordAuthenticationToken userPassAuthToken = new UsernamePasswordAuthenticationToken(username, password);
         try{
           authenticationManager.authenticate(userPassAuthToken);
@@ -32,6 +73,9 @@ public class AdminController {
             response.put("message", "Invalid admin credentials");
             return ResponseEntity.status(401).body(response);
         }
+        finally {
+            loginThrottle.release();
+        }
         Map<String, Object> response = new HashMap<>();
         String token = JwtUtil.generateToken(username);
         response.put("success", true);
@@ -40,16 +84,117 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
 
+    private ResponseEntity<?> tooManyAttempts(long retryAfterSeconds) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Too many login attempts, try again later");
+        return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
     @GetMapping("/verify")
     public ResponseEntity<?> verifyToken(@RequestHeader("Authorization") String authHeader) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             return ResponseEntity.status(401).body("Missing or invalid Authorization header");
         }
         String token = authHeader.substring(7);
-        if (JwtUtil.isTokenValid(token)) {
+        if (tokenVerifier.verify(token) != null) {
             return ResponseEntity.ok().body("Token is valid");
         } else {
             return ResponseEntity.status(401).body("Invalid or expired token");
         }
     }
-} 
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<?> cacheStats() {
+        return ResponseEntity.ok(productCatalog.stats());
+    }
+
+    @GetMapping("/auth-cache-stats")
+    public ResponseEntity<?> authCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("tokens", tokenVerifier.stats());
+        response.put("principals", adminPrincipalCache.stats());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/mail-queue")
+    public ResponseEntity<?> mailQueueStats() {
+        return ResponseEntity.ok(enquiryQueue.stats());
+    }
+
+    // Enquiries per hour or day over a range, for all enquiries or one product, industry or interest
+    @GetMapping("/enquiries/series")
+    public ResponseEntity<?> enquirySeries(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "total") String dimension,
+            @RequestParam(required = false) String value,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        EnquiryRollup.Granularity buckets = granularity(granularity);
+        EnquiryRollup.Dimension by = dimension(dimension);
+        if (buckets == null || by == null || (by != EnquiryRollup.Dimension.TOTAL && value == null)) {
+            return badRequest("Unknown granularity or dimension, or missing value");
+        }
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(defaultRange(buckets));
+        try {
+            return ResponseEntity.ok(enquiryStats.series(buckets, by, value, start, end));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    // Products, industries or interests with the most enquiries over a range
+    @GetMapping("/enquiries/top")
+    public ResponseEntity<?> topEnquiries(
+            @RequestParam(defaultValue = "product") String dimension,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "10") int limit) {
+        EnquiryRollup.Granularity buckets = granularity(granularity);
+        EnquiryRollup.Dimension by = dimension(dimension);
+        if (buckets == null || by == null || limit <= 0) {
+            return badRequest("Unknown granularity or dimension");
+        }
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(defaultRange(buckets));
+        try {
+            return ResponseEntity.ok(enquiryStats.top(buckets, by, start, end, Math.min(limit, 100)));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    private static EnquiryRollup.Granularity granularity(String name) {
+        return switch (name.toLowerCase()) {
+            case "hour" -> EnquiryRollup.Granularity.HOUR;
+            case "day" -> EnquiryRollup.Granularity.DAY;
+            default -> null;
+        };
+    }
+
+    private static EnquiryRollup.Dimension dimension(String name) {
+        return switch (name.toLowerCase()) {
+            case "total" -> EnquiryRollup.Dimension.TOTAL;
+            case "product" -> EnquiryRollup.Dimension.PRODUCT;
+            case "industry" -> EnquiryRollup.Dimension.INDUSTRY;
+            case "productinterest" -> EnquiryRollup.Dimension.PRODUCT_INTEREST;
+            default -> null;
+        };
+    }
+
+    // The last two days by hour, or the last thirty by day
+    private static Duration defaultRange(EnquiryRollup.Granularity granularity) {
+        return granularity == EnquiryRollup.Granularity.HOUR ? Duration.ofHours(48) : Duration.ofDays(30);
+    }
+
+    private static ResponseEntity<?> badRequest(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.badRequest().body(response);
+    }
+}
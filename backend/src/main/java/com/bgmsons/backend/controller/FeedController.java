@@ -0,0 +1,101 @@
+package com.bgmsons.backend.controller;
+
+import com.bgmsons.backend.catalog.CatalogFeeds;
+import com.bgmsons.backend.util.AcceptEncodingUtil;
+import com.bgmsons.backend.util.SendfileUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sitemap and product feeds for search engines and partners, served from the
+ * files {@link CatalogFeeds} renders once per catalogue version.
+ */
+@RestController
+public class FeedController {
+
+    private static final String CSV = "text/csv;charset=UTF-8";
+    private static final String REVALIDATE = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    private final CatalogFeeds catalogFeeds;
+
+    public FeedController(CatalogFeeds catalogFeeds) {
+        this.catalogFeeds = catalogFeeds;
+    }
+
+    // Sitemap, or a sitemap index past 50,000 products (public)
+    @GetMapping("/sitemap.xml")
+    public void getSitemap(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        send(CatalogFeeds.SITEMAP, MediaType.APPLICATION_XML_VALUE, request, response);
+    }
+
+    // One shard of a sharded sitemap (public)
+    @GetMapping("/sitemap-{shard}.xml")
+    public void getSitemapShard(@PathVariable int shard, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        send(CatalogFeeds.shardName(shard), MediaType.APPLICATION_XML_VALUE, request, response);
+    }
+
+    // All products as a JSON array (public)
+    @GetMapping("/api/products/feed.json")
+    public void getJsonFeed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        send(CatalogFeeds.JSON, MediaType.APPLICATION_JSON_VALUE, request, response);
+    }
+
+    // All products as CSV (public)
+    @GetMapping("/api/products/feed.csv")
+    public void getCsvFeed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        send(CatalogFeeds.CSV, CSV, request, response);
+    }
+
+    private void send(String name, String contentType, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        CatalogFeeds.Generation feeds = catalogFeeds.current();
+        if (feeds == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "30");
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        Path file = feeds.file(name);
+        if (file == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String encoding = null;
+        Path gzip = feeds.file(name + ".gz");
+        if (gzip != null && AcceptEncodingUtil.accepts(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip")) {
+            encoding = "gzip";
+            file = gzip;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // Each content coding is a distinct representation and needs its own strong ETag
+        String etag = "\"" + Long.toString(feeds.version(), 36) + (encoding != null ? "-" + encoding : "") + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag, feeds.lastModified())) {
+            return;
+        }
+
+        long length = Files.size(file);
+        response.setContentType(contentType);
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        response.setContentLengthLong(length);
+        if (!"HEAD".equals(request.getMethod())) {
+            SendfileUtil.send(request, response, file, length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.bgmsons.backend.controller;
+
+import com.bgmsons.backend.image.ImageService;
+import com.bgmsons.backend.image.ImageVariantService;
+import com.bgmsons.backend.image.StoredImage;
+import com.bgmsons.backend.util.SendfileUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+    // Image ids never change content, so clients may keep them for a year
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable()
+            .getHeaderValue();
+
+    private final ImageService imageService;
+    private final ImageVariantService imageVariantService;
+
+    public ImageController(ImageService imageService, ImageVariantService imageVariantService) {
+        this.imageService = imageService;
+        this.imageVariantService = imageVariantService;
+    }
+
+    // Upload one or more images (admin)
+    @PostMapping
+    public ResponseEntity<List<Map<String, String>>> uploadImages(@RequestParam("files") List<MultipartFile> files)
+            throws IOException {
+        List<Map<String, String>> uploaded = new ArrayList<>();
+        for (MultipartFile file : files) {
+            String url = imageService.store(file);
+            uploaded.add(Map.of("id", url.substring(ImageService.URL_PREFIX.length()), "url", url));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploaded);
+    }
+
+    // Stream an image, optionally downscaled to a width bucket with ?w= (admin/user)
+    @GetMapping("/{id}")
+    public void getImage(@PathVariable String id, @RequestParam(name = "w", required = false) Integer width,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<StoredImage> found = imageService.find(id);
+        if (found.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        StoredImage image = found.get();
+        Integer bucket = width != null && width > 0 ? ImageVariantService.bucket(width) : null;
+        String etag = bucket != null ? ImageVariantService.etag(image, bucket) : image.getHash();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + etag + "\"")) {
+            return;
+        }
+        if (bucket != null) {
+            // A cached variant comes with its file open and must be streamed from there
+            image = imageVariantService.variant(image, bucket);
+        }
+
+        if (image.getFile() != null) {
+            response.setContentType(image.getContentType());
+            response.setContentLengthLong(image.getLength());
+            SendfileUtil.send(request, response, image.getFile(), image.getLength());
+            return;
+        }
+        // Opened before anything else can fail, so a cached variant's file is always closed
+        try (InputStream in = image.openStream()) {
+            response.setContentType(image.getContentType());
+            response.setContentLengthLong(image.getLength());
+            in.transferTo(response.getOutputStream());
+        }
+    }
+}
@@ -3,23 +3,32 @@ package com.bgmsons.backend.controller;
 import static com.bgmsons.backend.util.MailUtil.createEnquiryMessage;
 import static com.bgmsons.backend.util.MailUtil.createProductEnquiryMessage;
 
+import java.io.IOException;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import jakarta.mail.internet.MimeMessage;
+import com.bgmsons.backend.catalog.ProductPopularity;
+import com.bgmsons.backend.mail.EnquiryLog;
+import com.bgmsons.backend.mail.EnquiryQueue;
+import com.bgmsons.backend.model.Enquiry;
+import com.bgmsons.backend.model.EnquiryJob;
+import com.bgmsons.backend.util.MailUtil;
 
 /**
  * MailController
+ *
+ * Enquiries are rendered and queued on the request thread, then sent in the
+ * background by the enquiry dispatcher; the visitor gets 202 right away.
  */
 @Controller
 @RequestMapping("api/mail")
@@ -28,47 +37,58 @@ public class MailController {
   private static final Logger logger = LoggerFactory.getLogger(MailController.class);
 
   @Autowired
-  private JavaMailSender javaMailSender;
+  private EnquiryQueue enquiryQueue;
+
+  @Autowired
+  private ProductPopularity productPopularity;
+
+  @Autowired
+  private EnquiryLog enquiryLog;
+
+  // After startup, off the path to the first request; a broken template still stops the app
+  @EventListener(ApplicationReadyEvent.class)
+  public void compileTemplate() throws IOException {
+    MailUtil.loadTemplate();
+  }
 
   @PostMapping("/send-enquiry")
   public ResponseEntity<?> sendEnquiry(@RequestBody Map<String, String> requestBody) {
 
+    String html;
     try {
-
-      MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-      MimeMessageHelper msgHelper = new MimeMessageHelper(mimeMessage, true);
-      msgHelper.setSubject("You've got a New Enquiry!!");
-      msgHelper.setTo(System.getenv("BGM_MAIL_ID"));
-      msgHelper.setFrom(System.getenv("BGM_SMTP_USERNAME") + "@gmail.com");
-      msgHelper.setText(createEnquiryMessage(requestBody),true);
-      javaMailSender.send(mimeMessage);
-      return ResponseEntity.ok().build();
-
-    } catch (Exception e) {
+      html = createEnquiryMessage(requestBody);
+    } catch (IOException e) {
       logger.error(e.toString());
       return ResponseEntity.internalServerError().build();
+    } catch (RuntimeException e) {
+      logger.warn("Rejected enquiry: {}", e.toString());
+      return ResponseEntity.badRequest().build();
     }
 
+    EnquiryJob job = enquiryQueue.enqueue("You've got a New Enquiry!!", html);
+    enquiryLog.record(Enquiry.Kind.GENERAL, requestBody, job.getId());
+    return ResponseEntity.accepted().body(Map.of("id", job.getId()));
+
   }
 
   @PostMapping("/send-product-enquiry")
   public ResponseEntity<?> productEnquiry(@RequestBody Map<String, String> requestBody) {
-    
-    try {
 
-      MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-      MimeMessageHelper msgHelper = new MimeMessageHelper(mimeMessage, true);
-      msgHelper.setSubject("You've Got a New Product Enquiry!!");
-      msgHelper.setTo(System.getenv("BGM_MAIL_ID"));
-      msgHelper.setFrom(System.getenv("BGM_SMTP_USERNAME") + "@gmail.com");
-      msgHelper.setText(createProductEnquiryMessage(requestBody), true);
-      javaMailSender.send(mimeMessage);
-      return ResponseEntity.ok().build();
-
-    } catch (Exception e) {
-      System.out.println(e);
+    String html;
+    try {
+      html = createProductEnquiryMessage(requestBody);
+    } catch (IOException e) {
+      logger.error(e.toString());
       return ResponseEntity.internalServerError().build();
+    } catch (RuntimeException e) {
+      logger.warn("Rejected product enquiry: {}", e.toString());
+      return ResponseEntity.badRequest().build();
     }
 
+    EnquiryJob job = enquiryQueue.enqueue("You've Got a New Product Enquiry!!", html);
+    productPopularity.recordEnquiry(requestBody.get("productId"));
+    enquiryLog.record(Enquiry.Kind.PRODUCT, requestBody, job.getId());
+    return ResponseEntity.accepted().body(Map.of("id", job.getId()));
+
   }
 }
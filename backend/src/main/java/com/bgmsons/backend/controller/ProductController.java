@@ -1,69 +1,232 @@
 package com.bgmsons.backend.controller;
 
+import com.bgmsons.backend.catalog.CatalogResponses;
+import com.bgmsons.backend.catalog.ChangeFeed;
+import com.bgmsons.backend.catalog.ProductCatalog;
+import com.bgmsons.backend.catalog.ProductImporter;
+import com.bgmsons.backend.catalog.ProductPopularity;
+import com.bgmsons.backend.catalog.RelatedProducts;
+import com.bgmsons.backend.catalog.SuggestIndex;
+import com.bgmsons.backend.model.BulkImportReport;
+import com.bgmsons.backend.model.PageResponse;
+import com.bgmsons.backend.model.PopularProduct;
 import com.bgmsons.backend.model.Product;
-import com.bgmsons.backend.repository.ProductRepository;
+import com.bgmsons.backend.model.ProductFilter;
+import com.bgmsons.backend.model.ProductChanges;
+import com.bgmsons.backend.model.ProductPatch;
+import com.bgmsons.backend.model.ProductSummary;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
-    private final ProductRepository productRepository;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_RELATED = 12;
+    private static final int MAX_POPULAR = 100;
+    private static final Set<String> SORTABLE = Set.of("name", "category", "subcategory", "created");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
-    public ProductController(ProductRepository productRepository) {
-        this.productRepository = productRepository;
+    private final ProductCatalog productCatalog;
+    private final CatalogResponses catalogResponses;
+    private final ProductImporter productImporter;
+    private final ChangeFeed changeFeed;
+    private final SuggestIndex suggestIndex;
+    private final ProductPopularity productPopularity;
+    private final RelatedProducts relatedProducts;
+
+    public ProductController(ProductCatalog productCatalog, CatalogResponses catalogResponses,
+                             ProductImporter productImporter, ChangeFeed changeFeed, SuggestIndex suggestIndex,
+                             ProductPopularity productPopularity, RelatedProducts relatedProducts) {
+        this.productCatalog = productCatalog;
+        this.catalogResponses = catalogResponses;
+        this.productImporter = productImporter;
+        this.changeFeed = changeFeed;
+        this.suggestIndex = suggestIndex;
+        this.productPopularity = productPopularity;
+        this.relatedProducts = relatedProducts;
     }
 
     // Add product (admin)
     @PostMapping
     public ResponseEntity<Product> addProduct(@RequestBody @Valid Product product,
                                               UriComponentsBuilder uriBuilder) {
-        Product saved = productRepository.save(product);
+        Product saved = productCatalog.add(product);
         URI location = uriBuilder.path("/api/products/{id}")
                                  .build(saved.getId());
         return ResponseEntity.created(location).body(saved);
      }
 
+    // Import products from an NDJSON body, one product per line (admin)
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkImportReport> importProducts(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(productImporter.importNdjson(request.getInputStream()));
+    }
+
+    // Export all products as NDJSON (admin)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .body(productImporter::exportNdjson);
+    }
+
     // Edit product (admin)
     @PutMapping("/{id}")
     public ResponseEntity<Product> editProduct(@PathVariable String id, @RequestBody Product product) {
-        Optional<Product> existing = productRepository.findById(id);
-        if (existing.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        Optional<Product> updated;
+        try {
+            updated = productCatalog.update(id, product);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).build();
+        }
+        return updated.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Update only the given fields of a product (admin)
+    @PatchMapping("/{id}")
+    public ResponseEntity<Product> patchProduct(@PathVariable String id, @RequestBody @Valid ProductPatch patch) {
+        Optional<Product> updated;
+        try {
+            updated = productCatalog.patch(id, patch);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).build();
         }
-        product.setId(id);
-        Product updated = productRepository.save(product);
-        return ResponseEntity.ok(updated);
+        return updated.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     // Delete product (admin)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
-        if (!productRepository.existsById(id)) {
+        if (!productCatalog.delete(id)) {
             return ResponseEntity.notFound().build();
         }
-        productRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
-    // Get all products (admin/user)
+    // Get all products, optionally filtered by category/subcategory/q (admin/user)
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productRepository.findAll());
+    public ResponseEntity<byte[]> getAllProducts(ProductFilter filter, HttpServletRequest request) {
+        ProductFilter normalized = filter.normalized();
+        return catalogResponses.json(request, List.of("list", normalized), () -> productCatalog.findAll(normalized));
      }
 
+    // Paged listing with the compact summary projection (admin/user)
+    @GetMapping("/summary")
+    public ResponseEntity<byte[]> getProductSummaries(ProductFilter filter,
+            @PageableDefault(size = 24) Pageable pageable, HttpServletRequest request) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE),
+                pageable.getSort());
+        ProductFilter normalized = filter.normalized();
+        return catalogResponses.json(request, List.of("summary", normalized, page),
+                () -> PageResponse.of(productCatalog.findSummaries(normalized, page)));
+    }
+
+    // Product counts per category and subcategory (admin/user)
+    @GetMapping("/facets")
+    public ResponseEntity<byte[]> getProductFacets(HttpServletRequest request) {
+        return catalogResponses.json(request, "facets", productCatalog::findFacets);
+    }
+
+    // Typeahead matches on name, category, subcategory and features (admin/user)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSummary>> suggestProducts(@RequestParam(defaultValue = "") String q,
+                                                                @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(suggestIndex.suggest(q, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    // Most viewed or most enquired products, refreshed every minute (admin/user)
+    @GetMapping("/popular")
+    public ResponseEntity<List<PopularProduct>> getPopularProducts(@RequestParam(defaultValue = "views") String by,
+                                                                   @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProductPopularity.Metric metric;
+        if (by.equalsIgnoreCase("views")) {
+            metric = ProductPopularity.Metric.VIEWS;
+        } else if (by.equalsIgnoreCase("enquiries")) {
+            metric = ProductPopularity.Metric.ENQUIRIES;
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productPopularity.popular(metric, Math.min(limit, MAX_POPULAR)));
+    }
+
+    // Product changes since a feed version, one net change per product (admin/user)
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChanges> getProductChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(changeFeed.since(since));
+    }
+
+    // Live product changes as Server-Sent Events, resuming after since or Last-Event-ID (admin/user)
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProductChanges(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = changeFeed.subscribe(lastEventId != null ? lastEventId : since);
+        if (emitter == null) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // Keeps reverse proxies such as nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
     // Get product by id (admin/user)
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
-        Optional<Product> product = productRepository.findById(id);
-        return product.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getProductById(@PathVariable String id, HttpServletRequest request) {
+        Optional<Product> product = productCatalog.findById(id);
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        productPopularity.recordView(id);
+        return catalogResponses.json(request, List.of("product", id), product::get);
+    }
+
+    // Products related by category and wording, precomputed (admin/user)
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<ProductSummary>> getRelatedProducts(@PathVariable String id,
+                                                                   @RequestParam(defaultValue = "6") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ProductSummary> related = relatedProducts.related(id, Math.min(limit, MAX_RELATED));
+        if (related.isEmpty() && productCatalog.findById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(related);
     }
-} 
+}
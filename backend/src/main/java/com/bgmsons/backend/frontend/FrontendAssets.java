@@ -0,0 +1,137 @@
+package com.bgmsons.backend.frontend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The built frontend (Vite's dist directory), indexed once at startup. The
+ * .gz and .deflate files written next to each asset by
+ * frontend/scripts/precompress.js are picked up as its encoded variants, so
+ * serving never compresses anything. Small files are held in memory, larger
+ * ones are sent from disk.
+ *
+ * Serving is off unless {@code bgm.frontend.dist} points at the directory.
+ */
+@Component
+public class FrontendAssets {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrontendAssets.class);
+    public static final String INDEX = "/index.html";
+    // Vite writes content-hashed file names under assets/, so they never change
+    private static final String HASHED_PREFIX = "/assets/";
+
+    private final Map<String, Asset> assets;
+
+    public record Variant(String encoding, Path file, long length, String etag, byte[] content) {
+    }
+
+    public record Asset(String contentType, long lastModified, boolean immutable,
+                        Variant identity, Variant gzip, Variant deflate) {
+    }
+
+    public FrontendAssets(@Value("${bgm.frontend.dist:}") String dist,
+                          @Value("${bgm.frontend.memory-threshold:48KB}") DataSize memoryThreshold) {
+        if (dist.isBlank()) {
+            this.assets = Map.of();
+            return;
+        }
+        Path root = Path.of(dist).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new IllegalStateException("bgm.frontend.dist is not a directory: " + root);
+        }
+        this.assets = Map.copyOf(scan(root, memoryThreshold.toBytes()));
+        logger.info("Serving {} frontend files from {}", assets.size(), root);
+    }
+
+    public boolean enabled() {
+        return !assets.isEmpty();
+    }
+
+    /**
+     * The asset for a request path. Paths without a file extension are client
+     * routes of the single page app and get index.html; null when a file was
+     * asked for that does not exist.
+     */
+    public Asset resolve(String path) {
+        if (path.endsWith("/")) {
+            path = path + "index.html";
+        }
+        Asset asset = assets.get(path);
+        if (asset != null) {
+            return asset;
+        }
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return name.contains(".") ? null : assets.get(INDEX);
+    }
+
+    private static Map<String, Asset> scan(Path root, long memoryThreshold) {
+        Map<String, Asset> assets = new HashMap<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                if (isVariant(file, name)) {
+                    continue;
+                }
+                String path = "/" + root.relativize(file).toString().replace('\\', '/');
+                long lastModified = Files.getLastModifiedTime(file).toMillis();
+                String etag = Long.toString(Files.size(file), 36) + "-" + Long.toString(lastModified, 36);
+                assets.put(path, new Asset(contentType(name), lastModified, path.startsWith(HASHED_PREFIX),
+                        variant(null, file, etag, memoryThreshold),
+                        variant("gzip", file.resolveSibling(name + ".gz"), etag, memoryThreshold),
+                        variant("deflate", file.resolveSibling(name + ".deflate"), etag, memoryThreshold)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the frontend dist directory " + root, e);
+        }
+        return assets;
+    }
+
+    // A precompressed copy of another file, not an asset of its own
+    private static boolean isVariant(Path file, String name) {
+        for (String suffix : new String[]{".gz", ".deflate"}) {
+            if (name.endsWith(suffix)) {
+                String original = name.substring(0, name.length() - suffix.length());
+                if (Files.isRegularFile(file.resolveSibling(original))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Variant variant(String encoding, Path file, String etag, long memoryThreshold) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        long length = Files.size(file);
+        byte[] content = length <= memoryThreshold ? Files.readAllBytes(file) : null;
+        // Each content coding is a distinct representation and needs its own strong ETag
+        String tag = "\"" + etag + (encoding != null ? "-" + encoding : "") + "\"";
+        return new Variant(encoding, file, length, tag, content);
+    }
+
+    private static String contentType(String name) {
+        MediaType type = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        boolean text = type.getType().equals("text") || type.getSubtype().equals("javascript")
+                || type.getSubtype().equals("json") || type.getSubtype().endsWith("+xml")
+                || type.getSubtype().endsWith("+json");
+        if (text && type.getCharset() == null) {
+            type = new MediaType(type, StandardCharsets.UTF_8);
+        }
+        return type.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.bgmsons.backend.frontend;
+
+import com.bgmsons.backend.util.AcceptEncodingUtil;
+import com.bgmsons.backend.util.SendfileUtil;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+
+/**
+ * Serves the frontend from {@link FrontendAssets} for every GET or HEAD
+ * outside the API. It runs ahead of Spring Security and the dispatcher, as
+ * the files are public and need neither. The precompressed variant is chosen
+ * from Accept-Encoding, and bodies that were not kept in memory go out with
+ * sendfile, or {@link FileChannel#transferTo} when the connector cannot.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class FrontendFilter extends OncePerRequestFilter {
+
+    // Served by the app itself
+    private static final String[] BACKEND_PATHS = {"/api/", "/actuator/", "/error", "/sitemap"};
+    private static final String IMMUTABLE =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    // index.html names the current hashed assets, so it is revalidated every time
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
+    private final FrontendAssets assets;
+
+    public FrontendFilter(FrontendAssets assets) {
+        this.assets = assets;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!assets.enabled() || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        for (String prefix : BACKEND_PATHS) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        FrontendAssets.Asset asset = assets.resolve(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        if (asset == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        FrontendAssets.Variant variant = asset.identity();
+        if (asset.gzip() != null && AcceptEncodingUtil.accepts(acceptEncoding, "gzip")) {
+            variant = asset.gzip();
+        } else if (asset.deflate() != null && AcceptEncodingUtil.accepts(acceptEncoding, "deflate")) {
+            variant = asset.deflate();
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, asset.immutable() ? IMMUTABLE : REVALIDATE);
+        if (asset.gzip() != null || asset.deflate() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(variant.etag(), asset.lastModified())) {
+            return;
+        }
+
+        response.setContentType(asset.contentType());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (variant.encoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.encoding());
+        }
+        response.setContentLengthLong(variant.length());
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (variant.content() != null) {
+            response.getOutputStream().write(variant.content());
+        } else {
+            SendfileUtil.send(request, response, variant.file(), variant.length());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bgmsons.backend.image;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded directory of files evicted in least-recently-used order. The
+ * index lives in memory and is rebuilt from the directory (oldest first) on
+ * startup, so the cache survives restarts.
+ */
+class DiskLruCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskLruCache.class);
+
+    private final Path directory;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    DiskLruCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    /**
+     * Whether the key is cached, marking it as recently used.
+     */
+    boolean contains(String key) {
+        lock.lock();
+        try {
+            return entries.get(key) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens the cached file for the key and marks it as recently used, or
+     * returns null on a miss. The file is opened under the lock eviction
+     * deletes under, and the open channel keeps the content readable after
+     * the entry is evicted, until the caller closes it.
+     */
+    FileChannel open(String key) {
+        lock.lock();
+        try {
+            Long size = entries.get(key);
+            if (size == null) {
+                return null;
+            }
+            try {
+                return FileChannel.open(directory.resolve(key));
+            } catch (IOException e) {
+                // Deleted behind the index, e.g. by a tmp cleaner: a miss
+                entries.remove(key);
+                totalBytes -= size;
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(String key, byte[] content) {
+        Path target = directory.resolve(key);
+        try {
+            // The directory may have been swept by a tmp cleaner since startup
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "variant", ".tmp");
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write cache entry " + key, e);
+        }
+
+        lock.lock();
+        try {
+            Long previous = entries.put(key, (long) content.length);
+            totalBytes += content.length - (previous != null ? previous : 0);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getKey()));
+            } catch (IOException e) {
+                logger.warn("Could not evict {}: {}", entry.getKey(), e.toString());
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).toList();
+        }
+        files.stream()
+                .map(file -> Map.entry(file, attributes(file)))
+                .filter(entry -> entry.getValue() != null)
+                .sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+                .forEach(entry -> {
+                    String key = entry.getKey().getFileName().toString();
+                    if (key.endsWith(".tmp")) {
+                        entry.getKey().toFile().delete();
+                        return;
+                    }
+                    entries.put(key, entry.getValue().size());
+                    totalBytes += entry.getValue().size();
+                });
+        evict();
+    }
+
+    private static BasicFileAttributes attributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bgmsons.backend.image;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed {@link ImageStore} on the local filesystem. The image id is
+ * the SHA-256 of the content plus an extension, so identical uploads share a file
+ * and the bytes can be handed to the connector with sendfile.
+ */
+@Component
+@ConditionalOnProperty(name = "bgm.images.store", havingValue = "filesystem")
+public class FileSystemImageStore implements ImageStore {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-f]{64}\\.[a-z]+");
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            MediaType.IMAGE_JPEG_VALUE, "jpg",
+            MediaType.IMAGE_PNG_VALUE, "png",
+            MediaType.IMAGE_GIF_VALUE, "gif",
+            "image/webp", "webp");
+
+    private final Path root;
+
+    public FileSystemImageStore(@Value("${bgm.images.dir:images}") String dir) throws IOException {
+        this.root = Files.createDirectories(Paths.get(dir)).toRealPath();
+    }
+
+    @Override
+    public String store(byte[] content, String contentType, String hash) {
+        String id = hash + "." + EXTENSIONS.getOrDefault(contentType, "bin");
+        Path target = resolve(id);
+        if (Files.exists(target)) {
+            return id;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store image " + id, e);
+        }
+        return id;
+    }
+
+    @Override
+    public Optional<StoredImage> find(String id) {
+        if (!ID_PATTERN.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        Path file = resolve(id);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        String contentType = MediaTypeFactory.getMediaType(id)
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        try {
+            return Optional.of(new StoredImage(id, contentType, Files.size(file), id.substring(0, 64), file,
+                    new FileSystemResource(file)));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        if (!ID_PATTERN.matcher(id).matches()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(resolve(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete image " + id, e);
+        }
+    }
+
+    // Fan out into two-character directories so no single directory grows huge
+    private Path resolve(String id) {
+        return root.resolve(id.substring(0, 2)).resolve(id);
+    }
+}
@@ -0,0 +1,73 @@
+package com.bgmsons.backend.image;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Default {@link ImageStore} keeping images in the GridFS bucket of the
+ * application database.
+ */
+@Component
+@ConditionalOnProperty(name = "bgm.images.store", havingValue = "gridfs", matchIfMissing = true)
+public class GridFsImageStore implements ImageStore {
+
+    private static final String HASH_KEY = "sha256";
+    private static final String CONTENT_TYPE_KEY = "_contentType";
+
+    private final GridFsTemplate gridFsTemplate;
+
+    public GridFsImageStore(GridFsTemplate gridFsTemplate) {
+        this.gridFsTemplate = gridFsTemplate;
+    }
+
+    @Override
+    public String store(byte[] content, String contentType, String hash) {
+        GridFSFile existing = gridFsTemplate.findOne(query(where("metadata." + HASH_KEY).is(hash)));
+        if (existing != null) {
+            return existing.getObjectId().toHexString();
+        }
+        ObjectId id = gridFsTemplate.store(new ByteArrayInputStream(content), hash, contentType,
+                new Document(HASH_KEY, hash));
+        return id.toHexString();
+    }
+
+    @Override
+    public Optional<StoredImage> find(String id) {
+        if (!ObjectId.isValid(id)) {
+            return Optional.empty();
+        }
+        GridFSFile file = gridFsTemplate.findOne(query(where("_id").is(new ObjectId(id))));
+        if (file == null) {
+            return Optional.empty();
+        }
+
+        Document metadata = file.getMetadata() != null ? file.getMetadata() : new Document();
+        GridFsResource resource = gridFsTemplate.getResource(file);
+        return Optional.of(new StoredImage(
+                id,
+                metadata.get(CONTENT_TYPE_KEY, "application/octet-stream"),
+                file.getLength(),
+                metadata.get(HASH_KEY, id),
+                null,
+                resource));
+    }
+
+    @Override
+    public void delete(String id) {
+        if (ObjectId.isValid(id)) {
+            gridFsTemplate.delete(query(where("_id").is(new ObjectId(id))));
+        }
+    }
+}
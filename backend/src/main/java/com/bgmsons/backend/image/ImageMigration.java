@@ -0,0 +1,73 @@
+package com.bgmsons.backend.image;
+
+import com.bgmsons.backend.catalog.CatalogChangedEvent;
+import com.bgmsons.backend.model.Product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * One-shot migration that moves base64 images embedded in product documents
+ * into the {@link ImageStore}. Enable with {@code bgm.images.migrate=true} for a
+ * single start; it only touches products that still hold data URLs, so running
+ * it again is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "bgm.images.migrate", havingValue = "true")
+public class ImageMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ImageService imageService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ImageMigration(MongoTemplate mongoTemplate, ImageService imageService,
+                          ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.imageService = imageService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Embedded images make documents large, keep the cursor batches small
+        Query embedded = query(where("images").regex("^data:")).cursorBatchSize(10);
+        embedded.fields().include("images");
+
+        AtomicInteger migrated = new AtomicInteger();
+        try (Stream<Product> products = mongoTemplate.stream(embedded, Product.class)) {
+            products.forEach(product -> {
+                try {
+                    List<String> images = imageService.internalize(product.getImages());
+                    if (!images.equals(product.getImages())) {
+                        mongoTemplate.updateFirst(query(where("_id").is(product.getId())),
+                                Update.update("images", images), Product.class);
+                        migrated.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Could not migrate images of product {}: {}", product.getId(), e.toString());
+                }
+            });
+        }
+        if (migrated.get() > 0) {
+            eventPublisher.publishEvent(CatalogChangedEvent.bulk());
+        }
+        logger.info("Moved embedded images of {} products into the image store", migrated.get());
+    }
+}
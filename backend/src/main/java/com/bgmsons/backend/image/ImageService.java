@@ -0,0 +1,218 @@
+package com.bgmsons.backend.image;
+
+import com.bgmsons.backend.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Moves product images between their API form and the {@link ImageStore}.
+ * Products reference stored images by URL ({@code /api/images/{id}}), so the
+ * frontend can keep using {@code images[n]} as an image source. Embedded base64
+ * data URLs are converted into stored images when a product is written.
+ * <p>
+ * Identical content is stored once, so a write may be about to reference an
+ * image that a cleanup finds unreferenced. Content stored in the last
+ * {@code bgm.images.delete-grace} is therefore only deleted once that has
+ * passed. This instance only knows its own writes; with several instances the
+ * grace has to cover the time another one takes to store and save a product.
+ */
+@Service
+public class ImageService {
+
+    public static final String URL_PREFIX = "/api/images/";
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
+    private static final Pattern DATA_URL = Pattern.compile("^data:(image/[a-z0-9.+-]+);base64,", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> SUPPORTED_TYPES = Set.of(
+            MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp");
+
+    private final ImageStore imageStore;
+    private final MongoTemplate mongoTemplate;
+    private final Duration deleteGrace;
+    // Hashes of content stored within the grace, whether or not it was new
+    private final Cache<String, Boolean> recentlyStored;
+    // Orders marking a hash as stored against deleting its image; not a monitor, as a GridFS delete would pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService executor;
+
+    public ImageService(ImageStore imageStore, MongoTemplate mongoTemplate,
+                        @Value("${bgm.images.delete-grace:60s}") Duration deleteGrace) {
+        this.imageStore = imageStore;
+        this.mongoTemplate = mongoTemplate;
+        this.deleteGrace = deleteGrace;
+        this.recentlyStored = Caffeine.newBuilder().expireAfterWrite(deleteGrace).build();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Optional<StoredImage> find(String id) {
+        return imageStore.find(id);
+    }
+
+    // Stores a multipart upload and returns its image URL
+    public String store(MultipartFile file) throws IOException {
+        String contentType = file.getContentType() != null ? file.getContentType().toLowerCase() : "";
+        if (!SUPPORTED_TYPES.contains(contentType)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported image type: " + contentType);
+        }
+        return store(file.getBytes(), contentType);
+    }
+
+    public String store(byte[] content, String contentType) {
+        String hash = sha256(content);
+        // Before the store looks for existing content, so a cleanup that has not deleted it yet leaves it be
+        lock.lock();
+        try {
+            recentlyStored.put(hash, Boolean.TRUE);
+        } finally {
+            lock.unlock();
+        }
+        return URL_PREFIX + imageStore.store(content, contentType, hash);
+    }
+
+    /**
+     * Returns the images with every embedded base64 data URL replaced by a
+     * stored image URL. Other entries (stored or external URLs) are kept as is.
+     * If one of them cannot be stored, the images stored before it are deleted
+     * again unless a product uses them.
+     */
+    public List<String> internalize(List<String> images) {
+        if (images == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>(images.size());
+        List<String> stored = new ArrayList<>();
+        try {
+            for (String image : images) {
+                if (isDataUrl(image)) {
+                    String url = storeDataUrl(image);
+                    stored.add(url);
+                    result.add(url);
+                } else {
+                    result.add(image);
+                }
+            }
+        } catch (RuntimeException e) {
+            deleteUnreferenced(stored);
+            throw e;
+        }
+        return result;
+    }
+
+    public static boolean isDataUrl(String image) {
+        return image != null && image.regionMatches(true, 0, "data:", 0, 5);
+    }
+
+    /**
+     * Deletes the stored images among {@code images} that no product references
+     * any more. Images whose content was stored within the grace are deleted
+     * once it has passed, if still unreferenced then.
+     */
+    public void deleteUnreferenced(Collection<String> images) {
+        if (images == null) {
+            return;
+        }
+        for (String image : images) {
+            if (image == null || !image.startsWith(URL_PREFIX)) {
+                continue;
+            }
+            if (mongoTemplate.exists(query(where("images").is(image)), Product.class)) {
+                continue;
+            }
+            String id = image.substring(URL_PREFIX.length());
+            Optional<String> hash = imageStore.find(id).map(StoredImage::getHash);
+            if (hash.isEmpty()) {
+                continue;
+            }
+            boolean deleted;
+            lock.lock();
+            try {
+                deleted = recentlyStored.getIfPresent(hash.get()) == null;
+                if (deleted) {
+                    imageStore.delete(id);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!deleted) {
+                executor.schedule(() -> deleteLater(image), deleteGrace.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void deleteLater(String image) {
+        try {
+            deleteUnreferenced(List.of(image));
+        } catch (RuntimeException e) {
+            logger.warn("Could not delete unreferenced image {}", image, e);
+        }
+    }
+
+    private String storeDataUrl(String dataUrl) {
+        Matcher matcher = DATA_URL.matcher(dataUrl);
+        String contentType = matcher.find() ? matcher.group(1).toLowerCase() : null;
+        if (contentType == null || !SUPPORTED_TYPES.contains(contentType)) {
+            // Leave anything we would not serve back as-is (e.g. SVG) embedded
+            logger.warn("Keeping embedded image of unsupported type {}", contentType);
+            return dataUrl;
+        }
+
+        byte[] content;
+        try {
+            content = Base64.getMimeDecoder().decode(dataUrl.substring(matcher.end()).getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed base64 image data");
+        }
+        return store(content, contentType);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.bgmsons.backend.image;
+
+import java.util.Optional;
+
+/**
+ * Binary storage for product images. Products keep only references to
+ * stored images; the bytes live here.
+ */
+public interface ImageStore {
+
+    /**
+     * Stores the content and returns its image id. Storing identical content
+     * again may return the existing id.
+     */
+    String store(byte[] content, String contentType, String hash);
+
+    Optional<StoredImage> find(String id);
+
+    void delete(String id);
+}
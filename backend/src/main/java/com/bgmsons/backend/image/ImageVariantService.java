@@ -0,0 +1,188 @@
+package com.bgmsons.backend.image;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves width-bucketed variants of stored images. Each variant is rendered
+ * once, kept in a bounded on-disk LRU cache keyed by content hash and width,
+ * and concurrent requests for the same missing variant share a single resize.
+ * A decode holds the full bitmap in memory (up to 160MB at 40MP), so only a
+ * fixed number of resizes run at once; requests that cannot get one in time
+ * are answered 503.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final int[] WIDTHS = {160, 320, 480, 640, 800, 1024, 1280, 1600};
+    private static final String[] EXTENSIONS = {".jpg", ".png"};
+    // Zero-length marker: the original is already small enough, serve it instead
+    private static final String ORIGINAL_MARKER = ".orig";
+
+    private final DiskLruCache cache;
+    private final Semaphore resizes;
+    private final Duration resizeWait;
+    private final ConcurrentMap<String, CompletableFuture<StoredImage>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariantService(
+            @Value("${bgm.images.cache-dir:#{systemProperties['java.io.tmpdir']}/bgm-image-variants}") String cacheDir,
+            @Value("${bgm.images.cache-max-size:512MB}") DataSize cacheMaxSize,
+            @Value("${bgm.images.resize-concurrency:2}") int resizeConcurrency,
+            @Value("${bgm.images.resize-wait:10s}") Duration resizeWait) throws IOException {
+        this.cache = new DiskLruCache(Paths.get(cacheDir), cacheMaxSize.toBytes());
+        this.resizes = new Semaphore(Math.max(1, resizeConcurrency));
+        this.resizeWait = resizeWait;
+    }
+
+    /**
+     * Snaps a requested width up to the nearest bucket, so arbitrary widths
+     * cannot fill the cache with near-duplicates.
+     */
+    public static int bucket(int width) {
+        for (int bucket : WIDTHS) {
+            if (width <= bucket) {
+                return bucket;
+            }
+        }
+        return WIDTHS[WIDTHS.length - 1];
+    }
+
+    /**
+     * The ETag of the image served for the bucket, known before the variant
+     * is looked up: the variant only depends on the original's content.
+     */
+    public static String etag(StoredImage original, int bucket) {
+        return original.getHash() + "-" + bucket;
+    }
+
+    /**
+     * Returns the variant of {@code original} for the bucket, or the original
+     * itself when it is not wider than the bucket or cannot be decoded. A
+     * variant read from the cache holds its file open, so the caller must
+     * open and close its stream.
+     */
+    public StoredImage variant(StoredImage original, int bucket) {
+        String key = etag(original, bucket);
+        StoredImage cached = lookup(original, key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<StoredImage> mine = new CompletableFuture<>();
+        CompletableFuture<StoredImage> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            StoredImage rendered;
+            try {
+                rendered = running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+            // Each request reads its own open copy; the rendered bytes if it was evicted already
+            cached = lookup(original, key);
+            if (cached != null) {
+                return cached;
+            }
+            return rendered != null ? rendered : variant(original, bucket);
+        }
+
+        try {
+            StoredImage result = lookup(original, key);
+            if (result != null) {
+                // An open copy cannot be shared, the waiters look it up themselves
+                mine.complete(null);
+                return result;
+            }
+            result = render(original, key, bucket);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private StoredImage lookup(StoredImage original, String key) {
+        if (cache.contains(key + ORIGINAL_MARKER)) {
+            return original;
+        }
+        for (String extension : EXTENSIONS) {
+            FileChannel channel = cache.open(key + extension);
+            if (channel != null) {
+                try {
+                    return new StoredImage(original.getId(), contentTypeOf(extension), channel.size(),
+                            key + extension, null, () -> Channels.newInputStream(channel));
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                    throw new UncheckedIOException("Could not read cached variant " + key + extension, e);
+                }
+            }
+        }
+        return null;
+    }
+
+    private StoredImage render(StoredImage original, String key, int bucket) {
+        ImageResizer.Result resized;
+        acquireResize(original);
+        try (InputStream in = original.openStream()) {
+            resized = ImageResizer.resize(in, bucket);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not resize image " + original.getId(), e);
+        } finally {
+            resizes.release();
+        }
+
+        if (resized.content() == null) {
+            cache.put(key + ORIGINAL_MARKER, new byte[0]);
+            return original;
+        }
+        String extension = resized.contentType().equals("image/png") ? ".png" : ".jpg";
+        cache.put(key + extension, resized.content());
+        // Served from memory: the file may be evicted by the next put before it is read
+        return new StoredImage(original.getId(), resized.contentType(), resized.content().length, key + extension,
+                null, new ByteArrayResource(resized.content()));
+    }
+
+    private void acquireResize(StoredImage original) {
+        try {
+            if (resizes.tryAcquire(resizeWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many image resizes in progress for " + original.getId());
+    }
+
+    private static String contentTypeOf(String extension) {
+        return extension.equals(".png") ? "image/png" : "image/jpeg";
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing was read
+        }
+    }
+}
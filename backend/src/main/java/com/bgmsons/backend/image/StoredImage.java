@@ -0,0 +1,26 @@
+package com.bgmsons.backend.image;
+
+import lombok.Data;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * A binary image held by an {@link ImageStore}, ready to be streamed.
+ */
+@Data
+public class StoredImage {
+    private final String id;
+    private final String contentType;
+    private final long length;
+    private final String hash; // hex SHA-256 of the content, used as the ETag
+    private final Path file; // set when the bytes live on the local filesystem
+    private final InputStreamSource source;
+
+    public InputStream openStream() throws IOException {
+        return source.getInputStream();
+    }
+}
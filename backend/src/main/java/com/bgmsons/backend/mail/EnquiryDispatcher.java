@@ -0,0 +1,200 @@
+package com.bgmsons.backend.mail;
+
+import com.bgmsons.backend.model.EnquiryJob;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sender workers draining the {@link EnquiryQueue}. Each worker claims a batch
+ * of due jobs and hands them to {@link JavaMailSender} in one call, which
+ * sends them over a single SMTP connection. Failed messages go back to the
+ * queue with backoff.
+ *
+ * With {@code spring.threads.virtual.enabled=true} the workers are virtual
+ * threads, like the request threads; otherwise they are platform daemon
+ * threads. The mail sender is injected lazily (see MailConfig).
+ */
+@Component
+public class EnquiryDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnquiryDispatcher.class);
+
+    private final EnquiryQueue enquiryQueue;
+    private final JavaMailSender javaMailSender;
+    private final int workers;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final ThreadFactory threadFactory;
+    private final Timer sendSuccess;
+    private final Timer sendFailure;
+    private final Counter sent;
+    private final Counter failures;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public EnquiryDispatcher(EnquiryQueue enquiryQueue, @Lazy JavaMailSender javaMailSender,
+                             @Value("${bgm.mail.workers:1}") int workers,
+                             @Value("${bgm.mail.batch-size:10}") int batchSize,
+                             @Value("${bgm.mail.poll-interval:10s}") Duration pollInterval,
+                             Environment environment, MeterRegistry meterRegistry) {
+        this.enquiryQueue = enquiryQueue;
+        this.javaMailSender = javaMailSender;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.threadFactory = threadFactory(environment);
+        this.sendSuccess = sendTimer(meterRegistry, "success");
+        this.sendFailure = sendTimer(meterRegistry, "failure");
+        this.sent = Counter.builder("bgm.mail.smtp.messages").tag("outcome", "sent").register(meterRegistry);
+        this.failures = Counter.builder("bgm.mail.smtp.messages").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = threadFactory.newThread(this::drain);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("bgm.mail.smtp.send")
+                .description("One batched SMTP send, including connecting")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory threadFactory(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor("enquiry-sender-").getVirtualThreadFactory();
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "enquiry-sender-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                List<EnquiryJob> batch = enquiryQueue.claim(batchSize);
+                if (batch.isEmpty()) {
+                    enquiryQueue.awaitWork(pollInterval);
+                } else {
+                    send(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Enquiry dispatch failed: {}", e.toString());
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void send(List<EnquiryJob> batch) {
+        Map<MimeMessage, EnquiryJob> messages = new IdentityHashMap<>();
+        for (EnquiryJob job : batch) {
+            try {
+                messages.put(createMessage(job), job);
+            } catch (MessagingException e) {
+                enquiryQueue.markFailed(job, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        long start = System.nanoTime();
+        try {
+            javaMailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages().isEmpty() ? failAll(messages, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            failed = failAll(messages, e);
+        }
+        (failed.isEmpty() ? sendSuccess : sendFailure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        failures.increment(failed.size());
+        sent.increment(messages.size() - failed.size());
+
+        for (Map.Entry<MimeMessage, EnquiryJob> entry : messages.entrySet()) {
+            Exception error = failed.get(entry.getKey());
+            if (error == null) {
+                enquiryQueue.markSent(entry.getValue());
+            } else {
+                logger.warn("Enquiry {} attempt {} failed: {}", entry.getValue().getId(), entry.getValue().getAttempts(),
+                        error.toString());
+                enquiryQueue.markFailed(entry.getValue(), error);
+            }
+        }
+    }
+
+    private MimeMessage createMessage(EnquiryJob job) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper msgHelper = new MimeMessageHelper(mimeMessage, true);
+        msgHelper.setSubject(job.getSubject());
+        msgHelper.setTo(System.getenv("BGM_MAIL_ID"));
+        msgHelper.setFrom(System.getenv("BGM_SMTP_USERNAME") + "@gmail.com");
+        msgHelper.setText(job.getHtml(), true);
+        return mimeMessage;
+    }
+
+    private static Map<Object, Exception> failAll(Map<MimeMessage, EnquiryJob> messages, Exception error) {
+        Map<Object, Exception> failed = new IdentityHashMap<>();
+        for (MimeMessage message : messages.keySet()) {
+            failed.put(message, error);
+        }
+        return failed;
+    }
+}
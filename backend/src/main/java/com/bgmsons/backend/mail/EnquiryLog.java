@@ -0,0 +1,336 @@
+package com.bgmsons.backend.mail;
+
+import com.bgmsons.backend.catalog.ProductCatalog;
+import com.bgmsons.backend.model.Enquiry;
+import com.bgmsons.backend.model.EnquiryRollup;
+
+import com.mongodb.bulk.BulkWriteError;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Persists every enquiry to the {@code enquiries} time-series collection and
+ * keeps hourly and daily {@link EnquiryRollup}s per product, industry and
+ * product interest. Industries and interests the contact form does not offer
+ * are counted together as "Other". Recording only queues the enquiry; one
+ * writer thread inserts whatever has queued up as a batch, then applies the
+ * batch's rollup increments as one unordered bulk of {@code $inc} upserts.
+ * Both steps can be retried after a partial failure without storing or
+ * counting anything twice.
+ *
+ * A full queue drops the enquiry from the log (the email is still sent) and
+ * counts it in {@code bgm.enquiries.log.dropped}.
+ */
+@Service
+public class EnquiryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnquiryLog.class);
+    private static final int MAX_VALUE_LENGTH = 100;
+    // Batch ids each rollup remembers; far more than a retry ever needs to look back
+    private static final int RECENT_BATCHES = 100;
+    private static final int DUPLICATE_KEY = 11000;
+    static final String TOTAL = "all";
+    // The choices the contact form offers. Rollups count anything else a visitor sends as OTHER, so
+    // free text cannot add rollups without bound
+    private static final List<String> INDUSTRIES = List.of(
+            "Automotive", "Solar Energy", "Furniture", "Electronics", "Food & Beverage", "Pharmaceutical");
+    private static final List<String> PRODUCT_INTERESTS = List.of(
+            "Warning & Safety Labels", "Product Branding Labels", "Equipment Tags", "Custom Die-Cut Labels",
+            "Promotional Stickers", "QR Code Labels", "Eco-Friendly Solutions");
+    static final String OTHER = "Other";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCatalog productCatalog;
+    private final ZoneId zone;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final BlockingQueue<Enquiry> pending;
+    private final Counter dropped;
+    private Thread writer;
+    private volatile boolean running;
+
+    private record Delta(EnquiryRollup.Granularity granularity, EnquiryRollup.Dimension dimension, String value,
+                         Instant bucket) {
+
+        String id() {
+            return granularity + ":" + dimension + ":" + value + ":" + bucket;
+        }
+    }
+
+    public EnquiryLog(MongoTemplate mongoTemplate, ProductCatalog productCatalog, MeterRegistry meterRegistry,
+                      @Value("${bgm.enquiries.time-zone:UTC}") ZoneId zone,
+                      @Value("${bgm.enquiries.log.capacity:10000}") int capacity,
+                      @Value("${bgm.enquiries.log.batch-size:500}") int batchSize,
+                      @Value("${bgm.enquiries.log.retry-delay:5s}") Duration retryDelay) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCatalog = productCatalog;
+        this.zone = zone;
+        this.batchSize = batchSize;
+        this.retryDelay = retryDelay;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.dropped = Counter.builder("bgm.enquiries.log.dropped").register(meterRegistry);
+        Gauge.builder("bgm.enquiries.log.pending", pending, BlockingQueue::size).register(meterRegistry);
+    }
+
+    public void record(Enquiry.Kind kind, Map<String, String> form, String jobId) {
+        Enquiry.Meta meta = new Enquiry.Meta();
+        meta.setKind(kind);
+        meta.setProductId(kind == Enquiry.Kind.PRODUCT ? value(form.get("productId")) : null);
+        meta.setIndustry(value(form.get("industry")));
+        meta.setProductInterest(value(form.get("productInterest")));
+
+        Enquiry enquiry = new Enquiry();
+        enquiry.setReceivedAt(Instant.now());
+        enquiry.setMeta(meta);
+        enquiry.setName(form.get("name"));
+        enquiry.setEmail(form.get("email"));
+        enquiry.setPhone(form.get("phone"));
+        enquiry.setCompany(form.get("company"));
+        enquiry.setMessage(form.get("message"));
+        enquiry.setJobId(jobId);
+        if (!pending.offer(enquiry)) {
+            dropped.increment();
+        }
+    }
+
+    // Start of the hour or day that contains the instant, in the configured time zone
+    static Instant bucket(Instant instant, EnquiryRollup.Granularity granularity, ZoneId zone) {
+        ChronoUnit unit = granularity == EnquiryRollup.Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+        return instant.atZone(zone).truncatedTo(unit).toInstant();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            if (!mongoTemplate.collectionExists(Enquiry.class)) {
+                mongoTemplate.createCollection(Enquiry.class);
+            }
+        } catch (DataAccessException e) {
+            // Before MongoDB 5.0; the first insert creates a regular collection
+            logger.warn("Could not create the enquiries time-series collection: {}", e.getMessage());
+        }
+        running = true;
+        writer = new Thread(this::run, "enquiry-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            // The writer wakes up at least once a second to notice
+            writer.join(5000);
+        }
+        List<Enquiry> rest = new ArrayList<>();
+        pending.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    private void run() {
+        List<Enquiry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Enquiry first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pending.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Retries until written, unless the app is stopping. A retry skips what an
+    // earlier attempt already wrote, so nothing is stored or counted twice.
+    private void write(List<Enquiry> batch) {
+        for (Enquiry enquiry : batch) {
+            // Assigned here so a retry can tell which enquiries got in
+            enquiry.setId(new ObjectId().toHexString());
+        }
+        String batchId = new ObjectId().toHexString();
+        Map<Delta, Long> deltas = null;
+        boolean retry = false;
+        while (true) {
+            try {
+                if (deltas == null) {
+                    insert(batch, retry);
+                    deltas = deltas(batch);
+                }
+                applyRollups(deltas, batchId);
+                return;
+            } catch (DataAccessException e) {
+                logger.warn("Could not write {} enquiries to the log, retrying in {}: {}", batch.size(), retryDelay,
+                        e.getMessage());
+            }
+            retry = true;
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(retryDelay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void insert(List<Enquiry> batch, boolean retry) {
+        List<Enquiry> missing = batch;
+        if (retry) {
+            // Time-series collections do not enforce unique ids, so look before inserting again
+            Query stored = query(where("_id").in(batch.stream().map(Enquiry::getId).toList()));
+            stored.fields().include("_id");
+            Set<String> ids = new HashSet<>();
+            for (Enquiry enquiry : mongoTemplate.find(stored, Enquiry.class)) {
+                ids.add(enquiry.getId());
+            }
+            missing = batch.stream().filter(enquiry -> !ids.contains(enquiry.getId())).toList();
+        }
+        if (!missing.isEmpty()) {
+            mongoTemplate.insert(missing, Enquiry.class);
+        }
+    }
+
+    private Map<Delta, Long> deltas(List<Enquiry> batch) {
+        Map<Delta, Long> deltas = new LinkedHashMap<>();
+        for (Enquiry enquiry : batch) {
+            Enquiry.Meta meta = enquiry.getMeta();
+            // The id comes from the visitor, so unknown products are not counted
+            String productId = meta.getProductId() != null && productCatalog.findById(meta.getProductId()).isPresent()
+                    ? meta.getProductId()
+                    : null;
+            String industry = choice(meta.getIndustry(), INDUSTRIES);
+            String productInterest = choice(meta.getProductInterest(), PRODUCT_INTERESTS);
+            for (EnquiryRollup.Granularity granularity : EnquiryRollup.Granularity.values()) {
+                Instant bucket = bucket(enquiry.getReceivedAt(), granularity, zone);
+                deltas.merge(new Delta(granularity, EnquiryRollup.Dimension.TOTAL, TOTAL, bucket), 1L, Long::sum);
+                if (productId != null) {
+                    deltas.merge(new Delta(granularity, EnquiryRollup.Dimension.PRODUCT, productId, bucket),
+                            1L, Long::sum);
+                }
+                if (industry != null) {
+                    deltas.merge(new Delta(granularity, EnquiryRollup.Dimension.INDUSTRY, industry, bucket),
+                            1L, Long::sum);
+                }
+                if (productInterest != null) {
+                    deltas.merge(new Delta(granularity, EnquiryRollup.Dimension.PRODUCT_INTEREST, productInterest,
+                            bucket), 1L, Long::sum);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Applies the increments as one unordered bulk, removing each from
+     * {@code deltas} once it is applied. An increment only matches a rollup
+     * that does not list the batch yet, so repeating one that an earlier
+     * attempt applied fails its upsert with a duplicate _id instead of
+     * counting again.
+     */
+    private void applyRollups(Map<Delta, Long> deltas, String batchId) {
+        List<Delta> operations = new ArrayList<>(deltas.keySet());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EnquiryRollup.class);
+        for (Delta delta : operations) {
+            bulk.upsert(query(where("_id").is(delta.id()).and("batches").ne(batchId)), new Update()
+                    .inc("count", deltas.get(delta))
+                    .push("batches").slice(-RECENT_BATCHES).each(batchId)
+                    .setOnInsert("granularity", delta.granularity())
+                    .setOnInsert("dimension", delta.dimension())
+                    .setOnInsert("value", delta.value())
+                    .setOnInsert("bucket", delta.bucket()));
+        }
+        try {
+            bulk.execute();
+            deltas.clear();
+        } catch (BulkOperationException e) {
+            Set<Delta> failed = new HashSet<>();
+            Map<String, Delta> duplicates = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                Delta delta = operations.get(error.getIndex());
+                failed.add(delta);
+                if (error.getCode() == DUPLICATE_KEY) {
+                    duplicates.put(delta.id(), delta);
+                }
+            }
+            // Either applied by an earlier attempt, or another instance created the rollup first
+            if (!duplicates.isEmpty()) {
+                Query applied = query(where("_id").in(duplicates.keySet()).and("batches").is(batchId));
+                applied.fields().include("_id");
+                for (EnquiryRollup rollup : mongoTemplate.find(applied, EnquiryRollup.class)) {
+                    failed.remove(duplicates.get(rollup.getId()));
+                }
+            }
+            deltas.keySet().retainAll(failed);
+            if (!deltas.isEmpty()) {
+                throw e;
+            }
+        }
+    }
+
+    // The form's spelling of a known choice, null for none or the form's "Select ..." placeholder, else OTHER
+    static String choice(String value, List<String> choices) {
+        if (value == null || value.startsWith("Select ")) {
+            return null;
+        }
+        for (String choice : choices) {
+            if (choice.equalsIgnoreCase(value)) {
+                return choice;
+            }
+        }
+        return OTHER;
+    }
+
+    private static String value(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String value = text.trim();
+        return value.length() > MAX_VALUE_LENGTH ? value.substring(0, MAX_VALUE_LENGTH) : value;
+    }
+}
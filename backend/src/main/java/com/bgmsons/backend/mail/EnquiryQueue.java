@@ -0,0 +1,150 @@
+package com.bgmsons.backend.mail;
+
+import com.bgmsons.backend.model.EnquiryJob;
+import com.bgmsons.backend.repository.EnquiryJobRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Durable enquiry queue persisted in Mongo, so accepted enquiries survive
+ * restarts and SMTP outages. Workers claim jobs with a time-limited lease; a
+ * job whose worker died is picked up again once the lease expires.
+ */
+@Service
+public class EnquiryQueue {
+
+    private static final Duration LEASE = Duration.ofMinutes(2);
+
+    private final MongoTemplate mongoTemplate;
+    private final EnquiryJobRepository enquiryJobRepository;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Semaphore wakeups = new Semaphore(0);
+
+    public EnquiryQueue(MongoTemplate mongoTemplate, EnquiryJobRepository enquiryJobRepository, MeterRegistry meterRegistry,
+                        @Value("${bgm.mail.max-attempts:8}") int maxAttempts,
+                        @Value("${bgm.mail.base-backoff:30s}") Duration baseBackoff,
+                        @Value("${bgm.mail.max-backoff:1h}") Duration maxBackoff) {
+        this.mongoTemplate = mongoTemplate;
+        this.enquiryJobRepository = enquiryJobRepository;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        // Counted in Mongo on each scrape
+        for (EnquiryJob.Status status : List.of(EnquiryJob.Status.PENDING, EnquiryJob.Status.SENDING, EnquiryJob.Status.FAILED)) {
+            Gauge.builder("bgm.mail.queue.jobs", enquiryJobRepository, repository -> repository.countByStatus(status))
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    public EnquiryJob enqueue(String subject, String html) {
+        EnquiryJob job = new EnquiryJob();
+        job.setSubject(subject);
+        job.setHtml(html);
+        job.setStatus(EnquiryJob.Status.PENDING);
+        job.setCreatedAt(Instant.now());
+        job.setNextAttemptAt(job.getCreatedAt());
+        EnquiryJob saved = enquiryJobRepository.save(job);
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+        return saved;
+    }
+
+    /**
+     * Leases up to {@code max} due jobs, oldest first.
+     */
+    public List<EnquiryJob> claim(int max) {
+        Instant now = Instant.now();
+        Query due = query(new Criteria().orOperator(
+                where("status").is(EnquiryJob.Status.PENDING).and("nextAttemptAt").lte(now),
+                where("status").is(EnquiryJob.Status.SENDING).and("lockedUntil").lte(now)))
+                .with(Sort.by("nextAttemptAt"));
+        Update lease = new Update()
+                .set("status", EnquiryJob.Status.SENDING)
+                .set("lockedUntil", now.plus(LEASE))
+                .inc("attempts", 1);
+
+        List<EnquiryJob> claimed = new ArrayList<>(max);
+        while (claimed.size() < max) {
+            EnquiryJob job = mongoTemplate.findAndModify(due, lease, FindAndModifyOptions.options().returnNew(true),
+                    EnquiryJob.class);
+            if (job == null) {
+                break;
+            }
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    public void markSent(EnquiryJob job) {
+        mongoTemplate.updateFirst(query(where("_id").is(job.getId())), new Update()
+                .set("status", EnquiryJob.Status.SENT)
+                .set("sentAt", Instant.now())
+                .unset("lockedUntil")
+                .unset("lastError"), EnquiryJob.class);
+    }
+
+    /**
+     * Schedules another attempt with exponential backoff, or parks the job
+     * as failed once it has used up its attempts.
+     */
+    public void markFailed(EnquiryJob job, Exception error) {
+        Update update = new Update().unset("lockedUntil").set("lastError", String.valueOf(error));
+        if (job.getAttempts() >= maxAttempts) {
+            update.set("status", EnquiryJob.Status.FAILED);
+        } else {
+            update.set("status", EnquiryJob.Status.PENDING).set("nextAttemptAt", Instant.now().plus(backoff(job.getAttempts())));
+        }
+        mongoTemplate.updateFirst(query(where("_id").is(job.getId())), update, EnquiryJob.class);
+    }
+
+    // Waits until an enquiry is enqueued or the timeout passes
+    boolean awaitWork(Duration timeout) throws InterruptedException {
+        return wakeups.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (EnquiryJob.Status status : List.of(EnquiryJob.Status.PENDING, EnquiryJob.Status.SENDING, EnquiryJob.Status.FAILED)) {
+            stats.put(status.name().toLowerCase(), enquiryJobRepository.countByStatus(status));
+        }
+        stats.put("oldestPendingSeconds", enquiryJobRepository.findFirstByStatusOrderByCreatedAtAsc(EnquiryJob.Status.PENDING)
+                .map(job -> Duration.between(job.getCreatedAt(), Instant.now()).toSeconds())
+                .orElse(0L));
+        return stats;
+    }
+
+    private Duration backoff(int attempts) {
+        long base = baseBackoff.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        // +/-20% jitter so retries after an outage do not arrive in lockstep
+        long jitter = (long) (capped * 0.2 * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        return Duration.ofMillis(capped + jitter);
+    }
+}
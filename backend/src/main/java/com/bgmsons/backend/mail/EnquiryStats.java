@@ -0,0 +1,112 @@
+package com.bgmsons.backend.mail;
+
+import com.bgmsons.backend.model.EnquiryCount;
+import com.bgmsons.backend.model.EnquiryRollup;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Enquiry analytics for the admin dashboard, read from the rollups that
+ * {@link EnquiryLog} maintains. A series reads one document per bucket at
+ * most, however many enquiries there were; the enquiries collection itself
+ * is never aggregated.
+ */
+@Service
+public class EnquiryStats {
+
+    // About four months of hours or ten years of days
+    private static final int MAX_BUCKETS = 3000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneId zone;
+
+    public EnquiryStats(MongoTemplate mongoTemplate, @Value("${bgm.enquiries.time-zone:UTC}") ZoneId zone) {
+        this.mongoTemplate = mongoTemplate;
+        this.zone = zone;
+    }
+
+    /**
+     * Enquiry counts for every bucket overlapping [from, to), zeros included.
+     * For the total, {@code value} is ignored.
+     */
+    public List<EnquiryCount> series(EnquiryRollup.Granularity granularity, EnquiryRollup.Dimension dimension,
+                                     String value, Instant from, Instant to) {
+        Instant start = EnquiryLog.bucket(from, granularity, zone);
+        List<Instant> buckets = buckets(granularity, start, to);
+        String key = dimension == EnquiryRollup.Dimension.TOTAL ? EnquiryLog.TOTAL : value;
+
+        Query query = new Query(rollups(granularity, dimension, start, to).and("value").is(key));
+        query.fields().include("bucket", "count");
+        Map<Instant, Long> counts = new HashMap<>();
+        for (EnquiryRollup rollup : mongoTemplate.find(query, EnquiryRollup.class)) {
+            counts.merge(rollup.getBucket(), rollup.getCount(), Long::sum);
+        }
+
+        List<EnquiryCount> series = new ArrayList<>(buckets.size());
+        for (Instant bucket : buckets) {
+            series.add(new EnquiryCount(bucket, null, counts.getOrDefault(bucket, 0L)));
+        }
+        return series;
+    }
+
+    /**
+     * The values of a dimension with the most enquiries in [from, to), e.g.
+     * the most enquired products of the last 30 days. Adds up rollups, one
+     * per bucket and value.
+     */
+    public List<EnquiryCount> top(EnquiryRollup.Granularity granularity, EnquiryRollup.Dimension dimension,
+                                  Instant from, Instant to, int limit) {
+        Instant start = EnquiryLog.bucket(from, granularity, zone);
+        buckets(granularity, start, to);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(rollups(granularity, dimension, start, to)),
+                Aggregation.group("value").sum("count").as("count"),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "count").and(Sort.by("_id"))),
+                Aggregation.limit(limit));
+        List<EnquiryCount> top = new ArrayList<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, EnquiryRollup.class, Document.class)) {
+            top.add(new EnquiryCount(null, result.getString("_id"), ((Number) result.get("count")).longValue()));
+        }
+        return top;
+    }
+
+    private static Criteria rollups(EnquiryRollup.Granularity granularity, EnquiryRollup.Dimension dimension,
+                                    Instant start, Instant to) {
+        return where("granularity").is(granularity)
+                .and("dimension").is(dimension)
+                .and("bucket").gte(start).lt(to);
+    }
+
+    private List<Instant> buckets(EnquiryRollup.Granularity granularity, Instant start, Instant to) {
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        ChronoUnit unit = granularity == EnquiryRollup.Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+        List<Instant> buckets = new ArrayList<>();
+        // Stepped in the zone, so days across a daylight saving change stay aligned
+        for (Instant bucket = start; bucket.isBefore(to); bucket = bucket.atZone(zone).plus(1, unit).toInstant()) {
+            if (buckets.size() >= MAX_BUCKETS) {
+                throw new IllegalArgumentException("Range covers more than " + MAX_BUCKETS + " buckets");
+            }
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+}
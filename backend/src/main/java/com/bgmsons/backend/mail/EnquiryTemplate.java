@@ -0,0 +1,188 @@
+package com.bgmsons.backend.mail;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The enquiry email template, compiled once into static HTML segments
+ * separated by slots. Jsoup is only used at compile time, to locate the
+ * elements by id. Rendering appends the segments and the escaped slot values
+ * to a per-thread buffer that is reused between renders.
+ */
+public final class EnquiryTemplate {
+
+    public enum Slot {
+        TITLE,
+        DATE,
+        NAME,
+        MESSAGE,
+        REPLY_TO,
+        CALL_NOW,
+        ROWS_AFTER_DATE,
+        ROWS_AFTER_NAME
+    }
+
+    private static final Pattern MARKER = Pattern.compile("\\{\\{slot:([A-Z_]+)}}");
+    private static final String KEY_CELL_STYLE = "padding: 10px; border: 1px solid #dddddd; width: 30%; background-color: #f8f8f8; font-weight: bold;";
+    private static final String VALUE_CELL_STYLE = "padding: 10px; border: 1px solid #dddddd;";
+    // Don't keep a buffer that grew for one unusually large enquiry
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private final String[] segments;
+    private final Slot[] slots;
+    private final Map<Slot, String> defaults;
+
+    private EnquiryTemplate(String[] segments, Slot[] slots, Map<Slot, String> defaults) {
+        this.segments = segments;
+        this.slots = slots;
+        this.defaults = defaults;
+    }
+
+    /**
+     * Values for one render. Unset slots keep the template's own content.
+     */
+    public static final class Values {
+        private final Map<Slot, String> values = new EnumMap<>(Slot.class);
+        private final List<String[]> rowsAfterDate = new ArrayList<>();
+        private final List<String[]> rowsAfterName = new ArrayList<>();
+
+        public Values set(Slot slot, String value) {
+            values.put(slot, value);
+            return this;
+        }
+
+        // Each row goes directly after the date row, ahead of rows added earlier
+        public Values rowAfterDate(String key, String value) {
+            rowsAfterDate.add(0, new String[]{key, value});
+            return this;
+        }
+
+        public Values rowAfterName(String key, String value) {
+            rowsAfterName.add(0, new String[]{key, value});
+            return this;
+        }
+    }
+
+    public static EnquiryTemplate compile(String html) {
+        Document doc = Jsoup.parse(html);
+        Map<Slot, String> defaults = new EnumMap<>(Slot.class);
+
+        textSlot(doc, "enquiry-type", Slot.TITLE, defaults);
+        textSlot(doc, "enq-date", Slot.DATE, defaults);
+        textSlot(doc, "cust-name", Slot.NAME, defaults);
+        textSlot(doc, "message", Slot.MESSAGE, defaults);
+        hrefSlot(doc, "reply-to", Slot.REPLY_TO, defaults);
+        hrefSlot(doc, "call-now", Slot.CALL_NOW, defaults);
+        require(doc, "enq-date").after(new TextNode(marker(Slot.ROWS_AFTER_DATE)));
+        require(doc, "cust-name").after(new TextNode(marker(Slot.ROWS_AFTER_NAME)));
+
+        String compiled = doc.toString();
+        List<String> segments = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        Matcher matcher = MARKER.matcher(compiled);
+        int start = 0;
+        while (matcher.find()) {
+            segments.add(compiled.substring(start, matcher.start()));
+            slots.add(Slot.valueOf(matcher.group(1)));
+            start = matcher.end();
+        }
+        segments.add(compiled.substring(start));
+        return new EnquiryTemplate(segments.toArray(new String[0]), slots.toArray(new Slot[0]), defaults);
+    }
+
+    public String render(Values values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(segments[i]);
+            appendSlot(out, slots[i], values);
+        }
+        out.append(segments[slots.length]);
+
+        String html = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    private void appendSlot(StringBuilder out, Slot slot, Values values) {
+        switch (slot) {
+            case ROWS_AFTER_DATE -> appendRows(out, values.rowsAfterDate);
+            case ROWS_AFTER_NAME -> appendRows(out, values.rowsAfterName);
+            default -> {
+                String value = values.values.get(slot);
+                if (value == null) {
+                    out.append(defaults.get(slot));
+                } else {
+                    escape(out, value);
+                }
+            }
+        }
+    }
+
+    private static void appendRows(StringBuilder out, List<String[]> rows) {
+        for (String[] row : rows) {
+            out.append("<tr><td style=\"").append(KEY_CELL_STYLE).append("\">");
+            escape(out, row[0]);
+            out.append("</td><td style=\"").append(VALUE_CELL_STYLE).append("\">");
+            escape(out, row[1]);
+            out.append("</td></tr>");
+        }
+    }
+
+    // Safe for both text and double-quoted attribute values
+    static void escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static void textSlot(Document doc, String id, Slot slot, Map<Slot, String> defaults) {
+        Element element = require(doc, id);
+        defaults.put(slot, escaped(element.text()));
+        element.text(marker(slot));
+    }
+
+    private static void hrefSlot(Document doc, String id, Slot slot, Map<Slot, String> defaults) {
+        Element element = require(doc, id);
+        defaults.put(slot, escaped(element.attr("href")));
+        element.attr("href", marker(slot));
+    }
+
+    private static Element require(Document doc, String id) {
+        Element element = doc.getElementById(id);
+        if (element == null) {
+            throw new IllegalStateException("Enquiry template has no element with id " + id);
+        }
+        return element;
+    }
+
+    private static String escaped(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        escape(out, value);
+        return out.toString();
+    }
+
+    private static String marker(Slot slot) {
+        return "{{slot:" + slot.name() + "}}";
+    }
+}
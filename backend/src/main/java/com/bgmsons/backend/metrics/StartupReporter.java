@@ -0,0 +1,74 @@
+package com.bgmsons.backend.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports how long the process took to become ready and to answer its first
+ * request, both counted from JVM start so class loading and JIT warm-up are
+ * included. Spring Boot's application.ready.time starts later, at main().
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupReporter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupReporter.class);
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+    private volatile long firstRequestMillis = -1;
+
+    public StartupReporter(MeterRegistry meterRegistry) {
+        TimeGauge.builder("bgm.startup.first.request", this, TimeUnit.MILLISECONDS, reporter -> reporter.firstRequestMillis)
+                .description("Time from JVM start until the first response was written")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        logger.info("Ready {} ms after JVM start (AOT: {}, CDS: {})", uptime(), AotDetector.useGeneratedArtifacts(),
+                usesSharedArchive());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!firstRequestSeen.get() && firstRequestSeen.compareAndSet(false, true)) {
+                firstRequestMillis = uptime();
+                logger.info("First request ({} {}) answered {} ms after JVM start", request.getMethod(),
+                        request.getRequestURI(), firstRequestMillis);
+            }
+        }
+    }
+
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    private static boolean usesSharedArchive() {
+        return ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+    }
+}
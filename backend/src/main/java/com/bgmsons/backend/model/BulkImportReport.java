@@ -0,0 +1,34 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a bulk product import, with one entry per non-blank input line.
+ */
+@Data
+public class BulkImportReport {
+
+    public enum Status {
+        CREATED,
+        REPLACED,
+        INVALID,
+        CONFLICT,
+        FAILED
+    }
+
+    @Data
+    public static class Line {
+        private final int line;
+        private Status status;
+        private String id;
+        private String error;
+    }
+
+    private int created;
+    private int replaced;
+    private int failed;
+    private List<Line> lines = new ArrayList<>();
+}
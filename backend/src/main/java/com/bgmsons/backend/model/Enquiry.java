@@ -0,0 +1,45 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+
+/**
+ * One submitted enquiry, kept in a time-series collection for the analytics
+ * behind the admin dashboard. The fields that rollups are kept for live in
+ * {@link Meta}, which Mongo uses to group measurements into buckets.
+ */
+@Data
+@Document(collection = "enquiries")
+@TimeSeries(timeField = "receivedAt", metaField = "meta", granularity = Granularity.HOURS)
+public class Enquiry {
+
+    public enum Kind {
+        GENERAL,
+        PRODUCT
+    }
+
+    @Data
+    public static class Meta {
+        private Kind kind;
+        private String productId;
+        private String industry;
+        private String productInterest;
+    }
+
+    @Id
+    private String id;
+    private Instant receivedAt;
+    private Meta meta;
+    private String name;
+    private String email;
+    private String phone;
+    private String company;
+    private String message;
+    private String jobId; // the queued email
+}
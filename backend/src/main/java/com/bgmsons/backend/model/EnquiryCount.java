@@ -0,0 +1,18 @@
+package com.bgmsons.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Enquiries in one bucket of a series, or for one value of a breakdown.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EnquiryCount {
+    private final Instant bucket;
+    private final String value;
+    private final long count;
+}
@@ -0,0 +1,40 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An enquiry email waiting in, or drained from, the durable send queue.
+ */
+@Data
+@Document(collection = "enquiry_queue")
+@CompoundIndex(name = "status_next_attempt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class EnquiryJob {
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        // Gave up after the maximum number of attempts
+        FAILED
+    }
+
+    @Id
+    private String id;
+    private String subject;
+    private String html;
+    private Status status;
+    private int attempts;
+    private Instant createdAt;
+    private Instant nextAttemptAt;
+    private Instant lockedUntil; // lease of the worker currently sending it
+    private String lastError;
+    @Indexed(expireAfter = "7d")
+    private Instant sentAt; // sent jobs are purged by the TTL index
+}
@@ -0,0 +1,44 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Number of enquiries in one hour or day for one value of a dimension, such
+ * as a product or an industry. Only ever written with {@code $inc} upserts
+ * keyed by the bucket, so concurrent writers from several instances add up.
+ */
+@Data
+@Document(collection = "enquiry_rollups")
+@CompoundIndex(name = "granularity_dimension_value_bucket",
+        def = "{'granularity': 1, 'dimension': 1, 'value': 1, 'bucket': 1}")
+public class EnquiryRollup {
+
+    public enum Granularity {
+        HOUR,
+        DAY
+    }
+
+    public enum Dimension {
+        // value is always "all"
+        TOTAL,
+        PRODUCT,
+        INDUSTRY,
+        PRODUCT_INTEREST
+    }
+
+    @Id
+    private String id;
+    private Granularity granularity;
+    private Dimension dimension;
+    private String value;
+    private Instant bucket; // start of the hour or day in bgm.enquiries.time-zone
+    private long count;
+    private List<String> batches; // the last log writes applied, so a retried write is not counted twice
+}
@@ -0,0 +1,32 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Stable JSON shape for paged listings, so clients do not depend on the
+ * serialized form of Spring Data's {@link Page} implementation.
+ */
+@Data
+public class PageResponse<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private boolean last;
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        PageResponse<T> response = new PageResponse<>();
+        response.setContent(page.getContent());
+        response.setPage(page.getNumber());
+        response.setSize(page.getSize());
+        response.setTotalElements(page.getTotalElements());
+        response.setTotalPages(page.getTotalPages());
+        response.setLast(page.isLast());
+        return response;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+/**
+ * Entry of the popular products ranking.
+ */
+@Data
+public class PopularProduct {
+    private final ProductSummary product;
+    private final long views;
+    private final long enquiries;
+}
@@ -1,7 +1,11 @@
 package com.bgmsons.backend.model;
 
+import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -9,16 +13,24 @@ import java.util.List;
 
 @Data
 @Document(collection = "products")
+@CompoundIndex(name = "category_subcategory", def = "{'category': 1, 'subcategory': 1}")
 public class Product {
     @Id
     private String id; // MongoDB uses String for _id
 
+    @NotBlank
+    @TextIndexed(weight = 3)
     private String name;
+    @NotBlank
     private String category;
     private String subcategory;
     private List<String> images;
     private LocalDate created;
+    @TextIndexed
     private String description;
     private String specification;
+    @TextIndexed
     private String features;
-} 
\ No newline at end of file
+    @Version
+    private Long version;
+}
@@ -0,0 +1,29 @@
+package com.bgmsons.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * One entry of the catalogue change feed. {@code fields} holds the changed
+ * top-level product fields with their new values (null for a removed field);
+ * it is absent for deletions. A RESET means the feed cannot describe what
+ * changed and clients should reload the catalogue.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChange {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        RESET
+    }
+
+    private final long version;
+    private final Type type;
+    private final String id;
+    private final Map<String, Object> fields;
+}
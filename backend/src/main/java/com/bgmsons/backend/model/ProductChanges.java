@@ -0,0 +1,18 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Response of the delta endpoint: the changes after the requested version,
+ * at most one per product, and the version to ask from next time. When
+ * {@code reset} is set the requested version is too old (or unknown) and the
+ * client must reload the catalogue before continuing from {@code version}.
+ */
+@Data
+public class ProductChanges {
+    private final long version;
+    private final boolean reset;
+    private final List<ProductChange> changes;
+}
@@ -0,0 +1,16 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Product count for one category, broken down by subcategory.
+ */
+@Data
+public class ProductFacet {
+    private String category;
+    private long count;
+    private Map<String, Long> subcategories = new LinkedHashMap<>();
+}
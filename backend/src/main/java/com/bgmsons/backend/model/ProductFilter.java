@@ -0,0 +1,33 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Optional catalogue filters bound from the {@code category}, {@code subcategory}
+ * and {@code q} query parameters.
+ */
+@Data
+public class ProductFilter {
+    private String category;
+    private String subcategory;
+    private String q;
+
+    /**
+     * The same filter with surrounding whitespace trimmed, runs of spaces in
+     * {@code q} collapsed and blank values dropped, so requests that select
+     * the same products compare equal.
+     */
+    public ProductFilter normalized() {
+        ProductFilter normalized = new ProductFilter();
+        normalized.setCategory(StringUtils.hasText(category) ? category.trim() : null);
+        normalized.setSubcategory(StringUtils.hasText(subcategory) ? subcategory.trim() : null);
+        normalized.setQ(StringUtils.hasText(q) ? q.trim().replaceAll("\\s+", " ") : null);
+        return normalized;
+    }
+
+    public boolean isEmpty() {
+        return !StringUtils.hasText(category) && !StringUtils.hasText(subcategory) && !StringUtils.hasText(q);
+    }
+}
@@ -0,0 +1,40 @@
+package com.bgmsons.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Partial product update. Fields left null are not changed. Images can be
+ * replaced as a whole with {@code images}, or edited in place with
+ * {@code addImages} and {@code removeImages}, but not both ways at once.
+ * When {@code version} is set the patch only applies to that version.
+ */
+@Data
+public class ProductPatch {
+    @Pattern(regexp = "(?s).*\\S.*", message = "must not be blank")
+    private String name;
+    @Pattern(regexp = "(?s).*\\S.*", message = "must not be blank")
+    private String category;
+    private String subcategory;
+    private LocalDate created;
+    private String description;
+    private String specification;
+    private String features;
+    private List<String> images;
+    private List<String> addImages;
+    private List<String> removeImages;
+    private Long version;
+
+    @JsonIgnore
+    @AssertTrue(message = "images cannot be combined with addImages or removeImages, and addImages cannot be combined with removeImages")
+    public boolean isImageChangeConsistent() {
+        int changes = (images != null ? 1 : 0) + (addImages != null ? 1 : 0) + (removeImages != null ? 1 : 0);
+        return changes <= 1;
+    }
+}
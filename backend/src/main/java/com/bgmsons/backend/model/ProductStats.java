@@ -0,0 +1,23 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Running popularity totals of one product. Only ever written with
+ * {@code $inc} upserts, so concurrent flushes from several instances add up.
+ */
+@Data
+@Document(collection = "product_stats")
+public class ProductStats {
+    @Id
+    private String productId;
+    @Indexed(direction = IndexDirection.DESCENDING)
+    private long views;
+    @Indexed(direction = IndexDirection.DESCENDING)
+    private long enquiries;
+}
@@ -0,0 +1,29 @@
+package com.bgmsons.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Compact listing view of a {@link Product}. Only the fields the catalogue grid
+ * renders are loaded, and {@code images} is sliced down to the cover image.
+ */
+@Data
+public class ProductSummary {
+    private String id;
+    private String name;
+    private String category;
+    private String subcategory;
+    private List<String> images;
+
+    public static ProductSummary of(Product product) {
+        ProductSummary summary = new ProductSummary();
+        summary.setId(product.getId());
+        summary.setName(product.getName());
+        summary.setCategory(product.getCategory());
+        summary.setSubcategory(product.getSubcategory());
+        List<String> images = product.getImages();
+        summary.setImages(images == null || images.isEmpty() ? List.of() : List.of(images.get(0)));
+        return summary;
+    }
+}
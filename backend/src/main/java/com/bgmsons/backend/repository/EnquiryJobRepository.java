@@ -0,0 +1,13 @@
+package com.bgmsons.backend.repository;
+
+import com.bgmsons.backend.model.EnquiryJob;
+
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface EnquiryJobRepository extends MongoRepository<EnquiryJob, String> {
+    long countByStatus(EnquiryJob.Status status);
+
+    Optional<EnquiryJob> findFirstByStatusOrderByCreatedAtAsc(EnquiryJob.Status status);
+}
@@ -3,6 +3,6 @@ package com.bgmsons.backend.repository;
 import com.bgmsons.backend.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
     // No need to redeclare save, findById, findAll, etc.
-} 
\ No newline at end of file
+}
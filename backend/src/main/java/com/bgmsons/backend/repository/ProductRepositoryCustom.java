@@ -0,0 +1,24 @@
+package com.bgmsons.backend.repository;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductFacet;
+import com.bgmsons.backend.model.ProductFilter;
+import com.bgmsons.backend.model.ProductSummary;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+
+    List<Product> search(ProductFilter filter);
+
+    Page<ProductSummary> searchSummaries(ProductFilter filter, Pageable pageable);
+
+    List<ProductFacet> countByCategory();
+
+    // Every product in id order, with the fields of the sitemap and feeds; close the stream
+    Stream<Product> streamForFeeds();
+}
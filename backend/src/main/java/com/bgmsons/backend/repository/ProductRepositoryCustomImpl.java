@@ -0,0 +1,114 @@
+package com.bgmsons.backend.repository;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductFacet;
+import com.bgmsons.backend.model.ProductFilter;
+import com.bgmsons.backend.model.ProductSummary;
+
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String COLLECTION = "products";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Product> search(ProductFilter filter) {
+        return mongoTemplate.find(buildQuery(filter), Product.class);
+    }
+
+    @Override
+    public Stream<Product> streamForFeeds() {
+        Query query = new Query().with(Sort.by("_id"));
+        query.fields().include("name", "category", "subcategory", "description", "created").slice("images", 1);
+        return mongoTemplate.stream(query, Product.class);
+    }
+
+    @Override
+    public Page<ProductSummary> searchSummaries(ProductFilter filter, Pageable pageable) {
+        Query query = buildQuery(filter);
+        Query countQuery = Query.of(query);
+
+        // Listing projection: grid fields plus the cover image only
+        query.fields().include("name", "category", "subcategory").slice("images", 1);
+        query.with(pageable);
+        if (pageable.getSort().isUnsorted() && !StringUtils.hasText(filter.getQ())) {
+            query.with(Sort.by("name"));
+        }
+
+        List<ProductSummary> content = mongoTemplate.query(Product.class)
+                .as(ProductSummary.class)
+                .matching(query)
+                .all();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(countQuery, Product.class));
+    }
+
+    @Override
+    public List<ProductFacet> countByCategory() {
+        Aggregation aggregation = newAggregation(
+                group("category", "subcategory").count().as("count"),
+                sort(Sort.by("_id.category", "_id.subcategory")));
+
+        Map<String, ProductFacet> facets = new LinkedHashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, COLLECTION, Document.class)) {
+            Document key = row.get("_id", Document.class);
+            String category = key.getString("category");
+            String subcategory = key.getString("subcategory");
+            long count = ((Number) row.get("count")).longValue();
+            if (category == null) {
+                continue;
+            }
+
+            ProductFacet facet = facets.computeIfAbsent(category, c -> {
+                ProductFacet f = new ProductFacet();
+                f.setCategory(c);
+                return f;
+            });
+            facet.setCount(facet.getCount() + count);
+            if (StringUtils.hasText(subcategory)) {
+                facet.getSubcategories().merge(subcategory, count, Long::sum);
+            }
+        }
+        return new ArrayList<>(facets.values());
+    }
+
+    private static Query buildQuery(ProductFilter filter) {
+        Query query = StringUtils.hasText(filter.getQ())
+                ? TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(filter.getQ())).sortByScore()
+                : new Query();
+        if (StringUtils.hasText(filter.getCategory())) {
+            query.addCriteria(Criteria.where("category").is(filter.getCategory()));
+        }
+        if (StringUtils.hasText(filter.getSubcategory())) {
+            query.addCriteria(Criteria.where("subcategory").is(filter.getSubcategory()));
+        }
+        return query;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bgmsons.backend.util;
+
+import java.util.Locale;
+
+/**
+ * AcceptEncodingUtil
+ *
+ * Reads the Accept-Encoding request header, for responses that are stored
+ * precompressed and only have to pick the right copy.
+ */
+public class AcceptEncodingUtil {
+
+  /**
+   * True when the header accepts the given coding, by name or through "*",
+   * with a non-zero q-value.
+   */
+  public static boolean accepts(String acceptEncoding, String coding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String part : acceptEncoding.split(",")) {
+      String[] params = part.trim().split(";");
+      String name = params[0].trim().toLowerCase(Locale.ROOT);
+      if (!name.equals(coding) && !name.equals("*")) {
+        continue;
+      }
+      boolean rejected = false;
+      for (int i = 1; i < params.length; i++) {
+        String param = params[i].trim();
+        if (param.startsWith("q=")) {
+          try {
+            rejected = Double.parseDouble(param.substring(2)) <= 0;
+          } catch (NumberFormatException e) {
+            rejected = true;
+          }
+        }
+      }
+      return !rejected;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,48 @@
+package com.bgmsons.backend.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+/**
+ * CacheUtil
+ *
+ * Cache.get(key, loader) runs the loader inside ConcurrentHashMap.compute,
+ * which holds a monitor. A virtual thread that blocks on Mongo there stays
+ * pinned to its carrier, and once every carrier is pinned the threads that
+ * would release them cannot run. Loading through an AsyncCache only holds the
+ * monitor long enough to insert a future; the loader then runs outside it.
+ */
+public class CacheUtil {
+
+  /**
+   * Returns the cached value for the key, loading it on the calling thread on
+   * a miss. Concurrent callers for the same key wait for that one load. A
+   * failed load is not cached and is rethrown to every caller waiting for it.
+   */
+  public static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+    CompletableFuture<V> created = new CompletableFuture<>();
+    CompletableFuture<V> future = cache.get(key, (k, executor) -> created);
+    if (future == created) {
+      try {
+        created.complete(loader.apply(key));
+      } catch (RuntimeException | Error e) {
+        created.completeExceptionally(e);
+        throw e;
+      }
+    }
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
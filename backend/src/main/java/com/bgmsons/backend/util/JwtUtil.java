@@ -11,6 +11,16 @@ public class JwtUtil {
   private static final String SECRET_KEY = System.getenv("BGM_JWT_SECRET_KEY");
   private static final long EXPIRATION_TIME = 7 * 24 * 60 * 60 * 1000; // 7 days in milliseconds
 
+  /**
+   * Subject and expiry of a token whose signature has been checked.
+   */
+  public record VerifiedToken(String subject, long expiresAt) {
+
+    public boolean isExpired() {
+      return expiresAt <= System.currentTimeMillis();
+    }
+  }
+
   public static String generateToken(String username) {
     return Jwts.builder()
         .setSubject(username)
@@ -20,17 +30,29 @@ public class JwtUtil {
         .compact();
   }
 
+  /**
+   * Parses and verifies the token once. Returns null if the token is
+   * malformed, badly signed, expired or has no subject.
+   */
+  public static VerifiedToken verify(String token) {
+    try {
+      Claims claims = getClaims(token);
+      if (claims.getSubject() == null || claims.getExpiration() == null) {
+        return null;
+      }
+      VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration().getTime());
+      return verified.isExpired() ? null : verified;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
   public static String extractUsername(String token) {
     return getClaims(token).getSubject();
   }
 
   public static boolean isTokenValid(String token) {
-    try {
-      Claims claims = getClaims(token);
-      return !claims.getExpiration().before(new Date());
-    } catch (Exception e) {
-      return false;
-    }
+    return verify(token) != null;
   }
 
   private static Claims getClaims(String token) {
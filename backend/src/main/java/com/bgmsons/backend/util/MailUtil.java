@@ -1,87 +1,111 @@
 package com.bgmsons.backend.util;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 
-import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.mail.EnquiryTemplate;
+import com.bgmsons.backend.mail.EnquiryTemplate.Slot;
 
 /**
  * MailUtil
+ *
+ * The template is compiled once and reused. Set BGM_MAIL_TEMPLATE_RELOAD=true
+ * in development to recompile it whenever the file changes.
  */
 public class MailUtil {
 
   private static final String TEMPLATE_PATH = "enquiry-template.html";
-
-  private static Document getHtmlDocument() throws IOException {
-    Resource resource = new ClassPathResource(TEMPLATE_PATH);
-    File templateFile = resource.getFile();
-    return Jsoup.parse(templateFile);
+  private static final boolean HOT_RELOAD = "true".equalsIgnoreCase(System.getenv("BGM_MAIL_TEMPLATE_RELOAD"));
+  private static final ReentrantLock templateLock = new ReentrantLock();
+
+  private static volatile EnquiryTemplate template;
+  private static volatile long templateModified;
+
+  /**
+   * Compiles the template if that has not happened yet, so a missing or
+   * broken template fails at startup rather than on the first enquiry.
+   */
+  public static void loadTemplate() throws IOException {
+    getTemplate();
   }
 
-  private static Element createTableRow(Document htmlDoc, String key, String value){
-    Element tableRow = htmlDoc.createElement("tr");
+  private static EnquiryTemplate getTemplate() throws IOException {
+    EnquiryTemplate current = template;
+    if (current != null && !HOT_RELOAD) {
+      return current;
+    }
 
-    Element tableDataKey = htmlDoc.createElement("td");
-    tableDataKey.attr("style", "padding: 10px; border: 1px solid #dddddd; width: 30%; background-color: #f8f8f8; font-weight: bold;");
-    tableDataKey.text(key);
+    Resource resource = new ClassPathResource(TEMPLATE_PATH);
+    long modified = HOT_RELOAD ? resource.lastModified() : 0;
+    if (current != null && modified == templateModified) {
+      return current;
+    }
 
-    Element tableDataValue = htmlDoc.createElement("td");
-    tableDataValue.attr("style","padding: 10px; border: 1px solid #dddddd;");
-    tableDataValue.text(value);
+    templateLock.lock();
+    try {
+      if (template == null || modified != templateModified) {
+        try (InputStream in = resource.getInputStream()) {
+          template = EnquiryTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        templateModified = modified;
+      }
+      return template;
+    } finally {
+      templateLock.unlock();
+    }
+  }
 
-    tableRow.appendChild(tableDataKey);
-    tableRow.appendChild(tableDataValue);
+  public static String productUrl(String productId) {
+    return siteUrl("/products/" + productId);
+  }
 
-    return tableRow; 
+  // Absolute URL of a path on the public site
+  public static String siteUrl(String path) {
+    return "http://" + System.getenv("BGM_DOMAIN") + path;
   }
 
   public static String createProductEnquiryMessage(Map<String, String> formData) throws IOException {
-    Document htmlDoc = getHtmlDocument();
-
-    htmlDoc.getElementById("enquiry-type").text("New Product Enquiry");
+    EnquiryTemplate.Values values = new EnquiryTemplate.Values()
+        .set(Slot.TITLE, "New Product Enquiry")
+        .set(Slot.DATE, new Date().toString());
 
     String customerName = formData.get("name");
     String customerEmail = formData.get("email");
     String customerContact = formData.get("phone");
     String message = formData.get("message");
 
-    Element dateElement = htmlDoc.getElementById("enq-date");
-    dateElement.text(new Date().toString());
-
     if(!customerName.isEmpty()){
-      htmlDoc.getElementById("cust-name").text(customerName);
+      values.set(Slot.NAME, customerName);
     }
 
     if(!customerEmail.isEmpty()){
-      htmlDoc.getElementById("reply-to").attr("href", "mailto:" + customerEmail);
+      values.set(Slot.REPLY_TO, "mailto:" + customerEmail);
     }
 
     if(!customerContact.isEmpty()){
-      htmlDoc.getElementById("call-now").attr("href", "tel:+91" + customerContact);
+      values.set(Slot.CALL_NOW, "tel:+91" + customerContact);
     }
 
     if(!message.isEmpty()){
-      htmlDoc.getElementById("message").text(formData.get("message"));
+      values.set(Slot.MESSAGE, message);
     }
 
-    Element customerNameRow = htmlDoc.getElementById("cust-name");
-    customerNameRow.after(createTableRow(htmlDoc, "Product Link", "http://" + System.getenv("BGM_DOMAIN") + "/products/" + formData.get("productId")));
+    values.rowAfterName("Product Link", productUrl(formData.get("productId")));
 
-    return htmlDoc.toString();
+    return getTemplate().render(values);
   }
 
   public static String createEnquiryMessage(Map<String, String> formData) throws IOException {
-    Document htmlDoc = getHtmlDocument();
-
-    htmlDoc.getElementById("enquiry-type").text("New Enquiry");
+    EnquiryTemplate.Values values = new EnquiryTemplate.Values()
+        .set(Slot.TITLE, "New Enquiry")
+        .set(Slot.DATE, new Date().toString());
 
     String customerName = formData.get("name");
     String customerEmail = formData.get("email");
@@ -91,42 +115,35 @@ public class MailUtil {
     String industryName = formData.get("industry");
     String message = formData.get("message");
 
-    Element dateElement = htmlDoc.getElementById("enq-date");
-    dateElement.text(new Date().toString());
-
     if(!customerName.isEmpty()){
-      htmlDoc.getElementById("cust-name").text(customerName);
+      values.set(Slot.NAME, customerName);
     }
 
     if(!customerEmail.isEmpty()){
-      htmlDoc.getElementById("reply-to").attr("href", "mailto:" + customerEmail);
+      values.set(Slot.REPLY_TO, "mailto:" + customerEmail);
     }
 
     if(!customerContact.isEmpty()){
-      htmlDoc.getElementById("call-now").attr("href", "tel:+91" + customerContact);
+      values.set(Slot.CALL_NOW, "tel:+91" + customerContact);
     }
     
     if(!message.isEmpty()){
-      htmlDoc.getElementById("message").text(formData.get("message"));
+      values.set(Slot.MESSAGE, message);
     }
 
     if (!companyName.isEmpty()) {
-      Element companyRow = createTableRow(htmlDoc, "Company", companyName);
-      dateElement.after(companyRow);
+      values.rowAfterDate("Company", companyName);
     }
 
     if (!productInterest.equals("Select Product Interest") && !productInterest.isEmpty()) {
-      Element productInterestRow = createTableRow(htmlDoc, "Product Interest", productInterest);
-      dateElement.after(productInterestRow);
+      values.rowAfterDate("Product Interest", productInterest);
     }
 
     if (!industryName.equals("Select Industry") && !industryName.isEmpty()) {
-      Element industryRow = createTableRow(htmlDoc, "Industry", industryName);
-      dateElement.after(industryRow);
+      values.rowAfterDate("Industry", industryName);
     }
 
-
-    return htmlDoc.toString();
+    return getTemplate().render(values);
   }
 
 }
@@ -0,0 +1,67 @@
+package com.bgmsons.backend.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * SendfileUtil
+ *
+ * Hands a file to Tomcat's NIO connector so the kernel copies it straight to
+ * the socket instead of the bytes passing through the JVM heap.
+ */
+public class SendfileUtil {
+
+  private static final String SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+  private static final String FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+  private static final String START_ATTR = "org.apache.tomcat.sendfile.start";
+  private static final String END_ATTR = "org.apache.tomcat.sendfile.end";
+
+  /**
+   * Asks the connector to send the whole file as the response body. The
+   * Content-Length must already be set. Returns false when sendfile is not
+   * available, in which case the caller must write the body itself.
+   */
+  public static boolean sendfile(HttpServletRequest request, Path file, long length) {
+    if (!Boolean.TRUE.equals(request.getAttribute(SUPPORT_ATTR))) {
+      return false;
+    }
+    try {
+      request.setAttribute(FILENAME_ATTR, file.toRealPath().toString());
+    } catch (IOException e) {
+      return false;
+    }
+    request.setAttribute(START_ATTR, 0L);
+    request.setAttribute(END_ATTR, length);
+    return true;
+  }
+
+  /**
+   * Sends the whole file as the response body with sendfile, or with
+   * {@link FileChannel#transferTo} when the connector cannot. The
+   * Content-Length must already be set.
+   */
+  public static void send(HttpServletRequest request, HttpServletResponse response, Path file, long length)
+      throws IOException {
+    if (sendfile(request, file, length)) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(file)) {
+      WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+      long position = 0;
+      while (position < length) {
+        long sent = channel.transferTo(position, length - position, target);
+        if (sent <= 0) {
+          // The file is shorter than the length that was announced
+          break;
+        }
+        position += sent;
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.bgmsons.backend;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.net.InetSocketAddress;
+
+/**
+ * An in-memory MongoDB server on a free port, for tests that need a
+ * {@link MongoTemplate} and repositories without starting the application.
+ */
+public final class InMemoryMongo implements AutoCloseable {
+
+    private final MongoServer server;
+    private final MongoClient client;
+    private final MongoTemplate template;
+
+    public InMemoryMongo() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://localhost:" + address.getPort());
+        template = new MongoTemplate(client, "test");
+    }
+
+    public MongoTemplate template() {
+        return template;
+    }
+
+    public <T> T repository(Class<T> type) {
+        return new MongoRepositoryFactory(template).getRepository(type);
+    }
+
+    // For a repository with a custom fragment, given its implementation
+    public <T> T repository(Class<T> type, Object fragment) {
+        return new MongoRepositoryFactory(template).getRepository(type, fragment);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        server.shutdownNow();
+    }
+}
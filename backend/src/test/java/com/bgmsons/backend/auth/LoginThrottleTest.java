@@ -0,0 +1,93 @@
+package com.bgmsons.backend.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The GCRA buckets per IP and per username, and the password-check
+ * bulkhead.
+ */
+class LoginThrottleTest {
+
+    private static LoginThrottle throttle(int ipLimit, int usernameLimit, Duration period) {
+        return new LoginThrottle(ipLimit, usernameLimit, period, 1000, 1);
+    }
+
+    @Test
+    void allowsBurstUpToLimitThenAsksToWait() {
+        LoginThrottle throttle = throttle(3, 10, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(throttle.acquire("10.0.0.1", "user" + i)).isZero();
+        }
+        // One attempt per 20 s once the burst is used up
+        assertThat(throttle.acquire("10.0.0.1", "other")).isBetween(19L, 20L);
+        // A rejected attempt does not push the next one further out
+        assertThat(throttle.acquire("10.0.0.1", "other")).isBetween(19L, 20L);
+        assertThat(throttle.acquire("10.0.0.2", "other")).isZero();
+    }
+
+    @Test
+    void limitsUsernameAcrossAddressesIgnoringCase() {
+        LoginThrottle throttle = throttle(100, 2, Duration.ofMinutes(1));
+
+        assertThat(throttle.acquire("10.0.0.1", "Admin")).isZero();
+        assertThat(throttle.acquire("10.0.0.2", "admin")).isZero();
+        assertThat(throttle.acquire("10.0.0.3", "ADMIN")).isBetween(29L, 30L);
+        assertThat(throttle.acquire("10.0.0.3", "someone")).isZero();
+    }
+
+    @Test
+    void usernameCaseIgnoresTheDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            LoginThrottle throttle = throttle(100, 1, Duration.ofMinutes(1));
+
+            assertThat(throttle.acquire("10.0.0.1", "admin")).isZero();
+            // Lower-cased as "admın" under Turkish rules
+            assertThat(throttle.acquire("10.0.0.2", "ADMIN")).isPositive();
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void attemptRejectedByAddressDoesNotTakeFromUsername() {
+        LoginThrottle throttle = throttle(1, 2, Duration.ofMinutes(1));
+
+        assertThat(throttle.acquire("10.0.0.1", "user")).isZero();
+        assertThat(throttle.acquire("10.0.0.1", "user")).isPositive();
+        assertThat(throttle.acquire("10.0.0.2", "user")).isZero();
+        assertThat(throttle.acquire("10.0.0.3", "user")).isPositive();
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        // One attempt per second, bursts of two
+        LoginThrottle throttle = throttle(2, 100, Duration.ofSeconds(2));
+
+        assertThat(throttle.acquire("10.0.0.1", "user")).isZero();
+        assertThat(throttle.acquire("10.0.0.1", "user")).isZero();
+        // Rounded up to whole seconds for Retry-After
+        assertThat(throttle.acquire("10.0.0.1", "user")).isEqualTo(1);
+
+        Thread.sleep(1100);
+        assertThat(throttle.acquire("10.0.0.1", "user")).isZero();
+        assertThat(throttle.acquire("10.0.0.1", "user")).isPositive();
+    }
+
+    @Test
+    void bulkheadRejectsInsteadOfQueueing() {
+        LoginThrottle throttle = throttle(10, 10, Duration.ofMinutes(1));
+
+        assertThat(throttle.tryEnter()).isTrue();
+        assertThat(throttle.tryEnter()).isFalse();
+        throttle.release();
+        assertThat(throttle.tryEnter()).isTrue();
+    }
+}
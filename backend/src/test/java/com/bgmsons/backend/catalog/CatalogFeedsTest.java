@@ -0,0 +1,82 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rendering the sitemap and feeds, and what requests get while there is
+ * nothing rendered yet.
+ */
+class CatalogFeedsTest {
+
+    private ProductRepository productRepository;
+    private CatalogFeeds feeds;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        feeds = new CatalogFeeds(productRepository, new CatalogVersion(), new ObjectMapper(), 50_000,
+                Duration.ZERO, Duration.ofSeconds(60));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        feeds.stop();
+    }
+
+    @Test
+    void failedFirstRenderingIsAnsweredAtOnceAndRetried() {
+        when(productRepository.streamForFeeds())
+                .thenThrow(new DataAccessResourceFailureException("Mongo is down"))
+                .thenAnswer(invocation -> Stream.of(product("a1")));
+
+        long start = System.nanoTime();
+        assertThat(feeds.current()).isNull();
+        // Well inside first-wait
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> feeds.current() != null);
+        assertThat(feeds.current().products()).isEqualTo(1);
+    }
+
+    @Test
+    void sitemapHasNoLastmod() throws IOException {
+        when(productRepository.streamForFeeds()).thenAnswer(invocation -> Stream.of(product("a1"), product("b2")));
+
+        CatalogFeeds.Generation generation = feeds.current();
+
+        String sitemap = Files.readString(generation.file(CatalogFeeds.SITEMAP));
+        assertThat(sitemap)
+                .contains("<url><loc>http://example.com/products/a1</loc></url>",
+                        "<url><loc>http://example.com/products/b2</loc></url>")
+                .doesNotContain("lastmod");
+        // Creation dates stay in the feeds, labelled as such
+        assertThat(Files.readString(generation.file(CatalogFeeds.CSV))).contains("2024-01-01");
+    }
+
+    private static Product product(String id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategory("industrial");
+        product.setCreated(LocalDate.of(2024, 1, 1));
+        return product;
+    }
+}
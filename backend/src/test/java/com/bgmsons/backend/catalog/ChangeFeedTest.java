@@ -0,0 +1,156 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.model.ProductChange;
+import com.bgmsons.backend.model.ProductChanges;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The delta view of the change feed: changes after a version collapsed to
+ * one net change per product, and a reset when the version is out of reach.
+ */
+class ChangeFeedTest {
+
+    private static final int CAPACITY = 8;
+
+    private ChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new ChangeFeed(new ObjectMapper(), new SimpleMeterRegistry(), new StandardEnvironment(), CAPACITY,
+                10, 16, 1, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    void updatesMergeIntoTheirCreation() {
+        long since = feed.current();
+        feed.append(ProductChange.Type.CREATED, "a", fields("name", "Tag", "category", "industrial"));
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "Steel Tag"));
+
+        ProductChanges changes = feed.since(since);
+
+        assertThat(changes.isReset()).isFalse();
+        assertThat(changes.getVersion()).isEqualTo(since + 2);
+        assertThat(changes.getChanges()).singleElement().satisfies(change -> {
+            assertThat(change.getType()).isEqualTo(ProductChange.Type.CREATED);
+            assertThat(change.getVersion()).isEqualTo(since + 2);
+            assertThat(change.getFields()).isEqualTo(fields("name", "Steel Tag", "category", "industrial"));
+        });
+    }
+
+    @Test
+    void consecutiveUpdatesKeepTheLatestValueOfEachField() {
+        long since = feed.current();
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "One", "description", "First"));
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "Two", "subcategory", null));
+
+        assertThat(feed.since(since).getChanges()).singleElement().satisfies(change -> {
+            assertThat(change.getType()).isEqualTo(ProductChange.Type.UPDATED);
+            // A removed field stays in the net change as null
+            assertThat(change.getFields()).isEqualTo(fields("name", "Two", "description", "First", "subcategory", null));
+        });
+    }
+
+    @Test
+    void creationAndDeletionCancelOut() {
+        long since = feed.current();
+        feed.append(ProductChange.Type.CREATED, "a", fields("name", "Short-lived"));
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "Still short-lived"));
+        feed.append(ProductChange.Type.DELETED, "a", null);
+
+        ProductChanges changes = feed.since(since);
+
+        assertThat(changes.isReset()).isFalse();
+        assertThat(changes.getChanges()).isEmpty();
+        assertThat(changes.getVersion()).isEqualTo(since + 3);
+    }
+
+    @Test
+    void deletionAndRecreationAreNetChanges() {
+        long since = feed.current();
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "Renamed"));
+        feed.append(ProductChange.Type.DELETED, "a", null);
+        feed.append(ProductChange.Type.DELETED, "b", null);
+        feed.append(ProductChange.Type.CREATED, "b", fields("name", "Back again"));
+
+        assertThat(feed.since(since).getChanges())
+                .extracting(ProductChange::getId, ProductChange::getType, ProductChange::getVersion)
+                .containsExactly(tuple("a", ProductChange.Type.DELETED, since + 2),
+                        tuple("b", ProductChange.Type.CREATED, since + 4));
+    }
+
+    @Test
+    void changesAreOrderedByTheirLatestVersion() {
+        long since = feed.current();
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "A1"));
+        feed.append(ProductChange.Type.UPDATED, "b", fields("name", "B1"));
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "A2"));
+
+        assertThat(feed.since(since).getChanges())
+                .extracting(ProductChange::getId, ProductChange::getVersion)
+                .containsExactly(tuple("b", since + 2), tuple("a", since + 3));
+        // Only what happened after the given version
+        assertThat(feed.since(since + 2).getChanges())
+                .extracting(ProductChange::getId)
+                .containsExactly("a");
+        assertThat(feed.since(since + 3).getChanges()).isEmpty();
+        assertThat(feed.since(since + 3).isReset()).isFalse();
+    }
+
+    @Test
+    void resetsWhenTheVersionIsOutOfReach() {
+        long since = feed.current();
+        for (int i = 0; i <= CAPACITY; i++) {
+            feed.append(ProductChange.Type.UPDATED, "a", fields("name", "N" + i));
+        }
+
+        // Overwritten in the ring
+        assertThat(feed.since(since).isReset()).isTrue();
+        assertThat(feed.since(since).getChanges()).isEmpty();
+        assertThat(feed.since(since + 1).isReset()).isFalse();
+        // Unknown, or from before a restart
+        assertThat(feed.since(null).isReset()).isTrue();
+        assertThat(feed.since(feed.current() + 1).isReset()).isTrue();
+        assertThat(feed.since(0L).isReset()).isTrue();
+    }
+
+    @Test
+    void resetsAcrossAResetEntry() {
+        long since = feed.current();
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "A1"));
+        feed.reset();
+        long afterReset = feed.current();
+        feed.append(ProductChange.Type.UPDATED, "a", fields("name", "A2"));
+
+        assertThat(feed.since(since).isReset()).isTrue();
+        assertThat(feed.since(afterReset).getChanges()).extracting(ProductChange::getVersion)
+                .containsExactly(afterReset + 1);
+    }
+
+    // Allows null values, unlike Map.of
+    private static Map<String, Object> fields(Object... keysAndValues) {
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            fields.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return fields;
+    }
+}
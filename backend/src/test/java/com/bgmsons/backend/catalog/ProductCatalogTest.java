@@ -0,0 +1,146 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.InMemoryMongo;
+import com.bgmsons.backend.image.FileSystemImageStore;
+import com.bgmsons.backend.image.ImageService;
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductPatch;
+import com.bgmsons.backend.repository.ProductRepository;
+import com.bgmsons.backend.repository.ProductRepositoryCustomImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Versioned writes through the catalogue: an update without a version wins
+ * over a concurrent write, and a rejected write leaves no stored images.
+ */
+class ProductCatalogTest {
+
+    @TempDir
+    Path imageDir;
+
+    private InMemoryMongo mongo;
+    private ProductRepository productRepository;
+    private ImageService imageService;
+    // Run while a write is between reading the product and writing it
+    private final List<Runnable> concurrentWrites = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mongo = new InMemoryMongo();
+        productRepository = mongo.repository(ProductRepository.class, new ProductRepositoryCustomImpl(mongo.template()));
+        imageService = new ImageService(new FileSystemImageStore(imageDir.toString()), mongo.template(), Duration.ZERO) {
+            @Override
+            public List<String> internalize(List<String> images) {
+                concurrentWrites.forEach(Runnable::run);
+                concurrentWrites.clear();
+                return super.internalize(images);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    @Test
+    void updateWithoutVersionWinsOverConcurrentWrite() {
+        save("p1", 0L);
+        concurrentWrites.add(() -> mongo.template().updateFirst(query(where("_id").is("p1")),
+                new Update().set("name", "Concurrent").inc("version", 1), Product.class));
+
+        Product updated = catalog().update("p1", product(null)).orElseThrow();
+
+        assertThat(updated.getVersion()).isEqualTo(2L);
+        Product stored = productRepository.findById("p1").orElseThrow();
+        assertThat(stored.getName()).isEqualTo("Updated");
+        assertThat(stored.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void updateWithStaleVersionConflictsAndLeavesNoImages() throws IOException {
+        save("p1", 3L);
+        Product product = product(1L);
+        product.setImages(List.of(dataUrl("stale")));
+
+        assertThatThrownBy(() -> catalog().update("p1", product)).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(productRepository.findById("p1").orElseThrow().getName()).isEqualTo("Product p1");
+        assertThat(storedImages()).isEmpty();
+    }
+
+    @Test
+    void patchWithStaleVersionConflictsAndLeavesNoImages() throws IOException {
+        String kept = imageService.store(bytes("kept"), "image/png");
+        save("p1", 3L, kept);
+        ProductPatch patch = new ProductPatch();
+        patch.setVersion(1L);
+        patch.setAddImages(List.of(dataUrl("added"), kept));
+
+        assertThatThrownBy(() -> catalog().patch("p1", patch)).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(productRepository.findById("p1").orElseThrow().getImages()).containsExactly(kept);
+        assertThat(storedImages()).containsExactly(kept.substring(ImageService.URL_PREFIX.length()));
+    }
+
+    private ProductCatalog catalog() {
+        return new ProductCatalog(productRepository, mongo.template(), imageService, event -> {
+        }, new SimpleMeterRegistry(), DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+    }
+
+    private void save(String id, long version, String... images) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategory("Valves");
+        product.setVersion(version);
+        product.setImages(images.length > 0 ? List.of(images) : null);
+        mongo.template().insert(product);
+    }
+
+    private static Product product(Long version) {
+        Product product = new Product();
+        product.setName("Updated");
+        product.setCategory("Valves");
+        product.setVersion(version);
+        return product;
+    }
+
+    private static String dataUrl(String content) {
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes(content));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<String> storedImages() throws IOException {
+        try (Stream<Path> files = Files.walk(imageDir)) {
+            return files.filter(Files::isRegularFile).map(file -> file.getFileName().toString()).toList();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.InMemoryMongo;
+import com.bgmsons.backend.image.FileSystemImageStore;
+import com.bgmsons.backend.image.ImageService;
+import com.bgmsons.backend.model.BulkImportReport;
+import com.bgmsons.backend.model.BulkImportReport.Status;
+import com.bgmsons.backend.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk NDJSON import against an in-memory Mongo and a filesystem image store:
+ * images stored for rejected lines, and those replaced products no longer
+ * use, are deleted unless another product still references them.
+ */
+class ProductImporterTest {
+
+    @TempDir
+    Path imageDir;
+
+    private InMemoryMongo mongo;
+    private ImageService imageService;
+    private ProductImporter importer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mongo = new InMemoryMongo();
+        imageService = new ImageService(new FileSystemImageStore(imageDir.toString()), mongo.template(), Duration.ZERO);
+        importer = new ProductImporter(mongo.template(), imageService,
+                Validation.buildDefaultValidatorFactory().getValidator(), event -> {
+                }, new ObjectMapper().findAndRegisterModules(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    @Test
+    void replacedImagesAreDeleted() throws IOException {
+        String old = imageService.store(bytes("old"), "image/png");
+        save("p1", 0L, old);
+
+        BulkImportReport report = importNdjson(line("p1", null, dataUrl("new")));
+
+        assertThat(report.getLines()).extracting(BulkImportReport.Line::getStatus).containsExactly(Status.REPLACED);
+        String replacement = product("p1").getImages().get(0);
+        assertThat(storedImages()).containsExactly(id(replacement));
+    }
+
+    @Test
+    void imageStillUsedElsewhereIsKept() throws IOException {
+        String shared = imageService.store(bytes("shared"), "image/png");
+        save("p1", 0L, shared);
+        save("p2", 0L, shared);
+
+        importNdjson(line("p1", null, dataUrl("new")));
+
+        assertThat(storedImages()).hasSize(2).contains(id(shared));
+    }
+
+    @Test
+    void conflictingLineLeavesNoImages() throws IOException {
+        save("p1", 3L);
+
+        BulkImportReport report = importNdjson(line("p1", 1L, dataUrl("stale")), line(null, null, dataUrl("fresh")));
+
+        assertThat(report.getLines()).extracting(BulkImportReport.Line::getStatus)
+                .containsExactly(Status.CONFLICT, Status.CREATED);
+        assertThat(product("p1").getImages()).isNull();
+        assertThat(storedImages()).containsExactly(id(product(report.getLines().get(1).getId()).getImages().get(0)));
+    }
+
+    @Test
+    void lineWithUnreadableImageLeavesNoImages() throws IOException {
+        String line = line(null, null, dataUrl("first")).replace("]}", ",\"data:image/png;base64,QQ=Q\"]}");
+
+        BulkImportReport report = importNdjson(line);
+
+        assertThat(report.getLines()).extracting(BulkImportReport.Line::getStatus).containsExactly(Status.INVALID);
+        assertThat(storedImages()).isEmpty();
+    }
+
+    private BulkImportReport importNdjson(String... lines) throws IOException {
+        return importer.importNdjson(new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void save(String id, long version, String... images) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategory("Valves");
+        product.setVersion(version);
+        product.setImages(images.length > 0 ? List.of(images) : null);
+        mongo.template().insert(product);
+    }
+
+    private Product product(String id) {
+        return mongo.template().findById(id, Product.class);
+    }
+
+    private static String line(String id, Long version, String image) {
+        return "{" + (id != null ? "\"id\":\"" + id + "\"," : "") + (version != null ? "\"version\":" + version + "," : "")
+                + "\"name\":\"Imported\",\"category\":\"Valves\",\"images\":[\"" + image + "\"]}";
+    }
+
+    private static String dataUrl(String content) {
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes(content));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String id(String url) {
+        return url.substring(ImageService.URL_PREFIX.length());
+    }
+
+    private List<String> storedImages() throws IOException {
+        try (Stream<Path> files = Files.walk(imageDir)) {
+            return files.filter(Files::isRegularFile).map(file -> file.getFileName().toString()).toList();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.InMemoryMongo;
+import com.bgmsons.backend.image.ImageService;
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductSummary;
+import com.bgmsons.backend.repository.ProductRepository;
+import com.bgmsons.backend.repository.ProductRepositoryCustomImpl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Related products after the initial build and after single product writes,
+ * which reuse the slots and word ids of the docs they replace.
+ */
+class RelatedProductsTest {
+
+    private InMemoryMongo mongo;
+    private RelatedProducts related;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        ProductRepository productRepository =
+                mongo.repository(ProductRepository.class, new ProductRepositoryCustomImpl(mongo.template()));
+        related = new RelatedProducts(mongo.template(), productRepository, 10, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        related.stop();
+        mongo.close();
+    }
+
+    @Test
+    void sharedWordsAndCategoryRankFirst() {
+        save("1", "Steel Asset Tag", "industrial");
+        save("2", "Steel Asset Plate", "industrial");
+        save("3", "Paper Label", "industrial");
+        save("4", "Steel Asset Tag", "retail");
+        related.onApplicationReady();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !related.related("1", 10).isEmpty());
+        assertThat(ids("1")).containsExactly("4", "2", "3");
+    }
+
+    @Test
+    void updatesAndDeletesKeepListsCurrent() {
+        save("1", "Steel Asset Tag", "industrial");
+        save("2", "Brass Valve", "plumbing");
+        // Events are handled in order on the index thread, after the build
+        related.onApplicationReady();
+
+        // Renamed back and forth, each time on the same slot
+        for (String name : List.of("Brass Tag", "Steel Asset Tag", "Brass Valve Tag")) {
+            save("1", name, "industrial");
+            related.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, "1"));
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> ids("2").equals(List.of("1")));
+
+        // A deleted product's slot is taken by the next new one
+        mongo.template().remove(mongo.template().findById("1", Product.class));
+        related.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.DELETED, "1"));
+        save("3", "Brass Valve Cap", "plumbing");
+        related.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.CREATED, "3"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> ids("2").equals(List.of("3")));
+        assertThat(ids("3")).containsExactly("2");
+        assertThat(related.related("1", 10)).isEmpty();
+    }
+
+    private List<String> ids(String productId) {
+        return related.related(productId, 10).stream().map(ProductSummary::getId).toList();
+    }
+
+    private void save(String id, String name, String category) {
+        // The in-memory server cannot slice a missing array, so every product has an image
+        mongo.template().upsert(query(where("_id").is(id)), new Update()
+                .set("name", name)
+                .set("category", category)
+                .set("images", List.of(ImageService.URL_PREFIX + id))
+                .inc("version", 1), Product.class);
+    }
+}
@@ -0,0 +1,143 @@
+package com.bgmsons.backend.catalog;
+
+import com.bgmsons.backend.InMemoryMongo;
+import com.bgmsons.backend.model.Product;
+import com.bgmsons.backend.model.ProductSummary;
+import com.bgmsons.backend.repository.ProductRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ranking and matching of typeahead suggestions, and keeping the index
+ * current from catalogue change events.
+ */
+class SuggestIndexTest {
+
+    private InMemoryMongo mongo;
+    private ProductRepository productRepository;
+    private SuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        productRepository = mock(ProductRepository.class);
+        index = new SuggestIndex(mongo.template(), productRepository, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.stop();
+        mongo.close();
+    }
+
+    @Test
+    void nameRanksAboveCategorySubcategoryAndFeatures() {
+        build(product("1", "Printed Label", "industrial", "tags", "steel adhesive"),
+                product("2", "Asset Plate", "industrial", "steel", null),
+                product("3", "Barcode Sticker", "steel", "rolls", null),
+                product("4", "Steel Tag", "industrial", "tags", null));
+
+        assertThat(ids(index.suggest("steel", 10))).containsExactly("4", "3", "2", "1");
+    }
+
+    @Test
+    void wholeWordsRankAbovePrefixes() {
+        build(product("1", "Luggage Tagging Kit", "travel", null, null),
+                product("2", "Luggage Tag", "travel", null, null));
+
+        assertThat(ids(index.suggest("tag", 10))).containsExactly("2", "1");
+    }
+
+    @Test
+    void namesStartingWithTheQueryRankFirst() {
+        build(product("1", "Asset Steel Tag", "industrial", null, null),
+                product("2", "Steel Asset Tag", "industrial", null, null));
+
+        assertThat(ids(index.suggest("steel asset", 10))).containsExactly("2", "1");
+    }
+
+    @Test
+    void everyWordMustMatchAWordOrPrefix() {
+        build(product("1", "Steel Tag", "industrial", null, null),
+                product("2", "Steel Plate", "industrial", null, null),
+                product("3", "Stainless Tag", "industrial", null, null));
+
+        assertThat(ids(index.suggest("steel ta", 10))).containsExactly("1");
+        assertThat(ids(index.suggest("ta st", 10))).containsExactly("1", "3");
+        assertThat(ids(index.suggest("steel tags", 10))).isEmpty();
+        assertThat(ids(index.suggest("  ", 10))).isEmpty();
+    }
+
+    @Test
+    void foldsCaseAndAccents() {
+        build(product("1", "Étiquette Thermique", "labels", null, null));
+
+        assertThat(ids(index.suggest("ETIQ", 10))).containsExactly("1");
+        assertThat(ids(index.suggest("thérmique", 10))).containsExactly("1");
+    }
+
+    @Test
+    void limitKeepsTheBestAndBreaksTiesByShorterName() {
+        build(product("1", "Tag Holder Clip", "hardware", null, null),
+                product("2", "Tag", "hardware", null, null),
+                product("3", "Tag Holder", "hardware", null, null));
+
+        assertThat(ids(index.suggest("tag", 2))).containsExactly("2", "3");
+        assertThat(index.suggest("tag", 0)).isEmpty();
+    }
+
+    @Test
+    void followsCatalogChanges() {
+        build(product("1", "Steel Tag", "industrial", null, null));
+
+        Product renamed = product("1", "Brass Tag", "industrial", null, null);
+        when(productRepository.findById("1")).thenReturn(Optional.of(renamed));
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, "1"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> !index.suggest("brass", 10).isEmpty());
+        assertThat(index.suggest("steel", 10)).isEmpty();
+
+        Product created = product("2", "Brass Plate", "industrial", null, null);
+        when(productRepository.findById("2")).thenReturn(Optional.of(created));
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.CREATED, "2"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> index.suggest("brass", 10).size() == 2);
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.DELETED, "1"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> ids(index.suggest("brass", 10)).equals(List.of("2")));
+    }
+
+    // Stores the products and waits for the background build to see them
+    private void build(Product... products) {
+        for (Product product : products) {
+            mongo.template().insert(product);
+        }
+        index.onApplicationReady();
+        String name = products[0].getName();
+        await().atMost(Duration.ofSeconds(5)).until(() -> !index.suggest(name, 1).isEmpty());
+    }
+
+    private static Product product(String id, String name, String category, String subcategory, String features) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setSubcategory(subcategory);
+        product.setFeatures(features);
+        product.setImages(List.of("/api/images/" + id + ".jpg"));
+        return product;
+    }
+
+    private static List<String> ids(List<ProductSummary> suggestions) {
+        return suggestions.stream().map(ProductSummary::getId).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.bgmsons.backend.image;
+
+import com.bgmsons.backend.InMemoryMongo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Deleting unreferenced images while a write may still be about to reference
+ * the same, deduplicated content.
+ */
+class ImageServiceTest {
+
+    @TempDir
+    Path imageDir;
+
+    private InMemoryMongo mongo;
+    private ImageStore imageStore;
+    private ImageService imageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mongo = new InMemoryMongo();
+        imageStore = new FileSystemImageStore(imageDir.toString());
+        imageService = new ImageService(imageStore, mongo.template(), Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageService.stop();
+        mongo.close();
+    }
+
+    @Test
+    void recentlyStoredContentIsDeletedAfterTheGrace() {
+        String url = imageService.store(bytes("image"), "image/png");
+
+        imageService.deleteUnreferenced(List.of(url));
+
+        assertThat(imageStore.find(id(url))).isPresent();
+        await().atMost(Duration.ofSeconds(5)).until(() -> imageStore.find(id(url)).isEmpty());
+    }
+
+    @Test
+    void storingTheSameContentAgainDefersTheDelete() throws InterruptedException {
+        String url = imageService.store(bytes("image"), "image/png");
+        Thread.sleep(600);
+
+        // Another write deduplicates to the same image just before the cleanup
+        assertThat(imageService.store(bytes("image"), "image/png")).isEqualTo(url);
+        imageService.deleteUnreferenced(List.of(url));
+
+        assertThat(imageStore.find(id(url))).isPresent();
+    }
+
+    @Test
+    void contentOutsideTheGraceIsDeletedAtOnce() throws InterruptedException {
+        String url = imageService.store(bytes("image"), "image/png");
+        Thread.sleep(600);
+
+        imageService.deleteUnreferenced(List.of(url));
+
+        assertThat(imageStore.find(id(url))).isEmpty();
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String id(String url) {
+        return url.substring(ImageService.URL_PREFIX.length());
+    }
+}
@@ -0,0 +1,210 @@
+package com.bgmsons.backend.mail;
+
+import com.bgmsons.backend.InMemoryMongo;
+import com.bgmsons.backend.model.EnquiryJob;
+import com.bgmsons.backend.repository.EnquiryJobRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * The durable enquiry queue and its dispatcher against an in-memory Mongo and
+ * an in-process SMTP server: leases, batched sends, retries with backoff and
+ * parking after the last attempt.
+ */
+class EnquiryDispatcherTest {
+
+    @RegisterExtension
+    static final GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+
+    private InMemoryMongo mongo;
+    private EnquiryJobRepository jobs;
+    private EnquiryQueue queue;
+
+    // Counts SMTP connections, one per batch
+    private static final class CountingSender extends JavaMailSenderImpl {
+        private int connections;
+
+        @Override
+        protected Transport connectTransport() throws MessagingException {
+            connections++;
+            return super.connectTransport();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongo = new InMemoryMongo();
+        jobs = mongo.repository(EnquiryJobRepository.class);
+        queue = new EnquiryQueue(mongo.template(), jobs, new SimpleMeterRegistry(), MAX_ATTEMPTS, BASE_BACKOFF,
+                Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    @Test
+    void claimLeasesDueJobsOldestFirst() {
+        EnquiryJob first = queue.enqueue("first", "<p>1</p>");
+        EnquiryJob second = queue.enqueue("second", "<p>2</p>");
+        EnquiryJob third = queue.enqueue("third", "<p>3</p>");
+        dueSince(first, 30);
+        dueSince(second, 20);
+        dueSince(third, 10);
+
+        List<EnquiryJob> claimed = queue.claim(2);
+
+        assertThat(claimed).extracting(EnquiryJob::getSubject).containsExactly("first", "second");
+        assertThat(claimed).allSatisfy(job -> {
+            assertThat(job.getStatus()).isEqualTo(EnquiryJob.Status.SENDING);
+            assertThat(job.getAttempts()).isEqualTo(1);
+            assertThat(job.getLockedUntil()).isAfter(Instant.now());
+        });
+        assertThat(queue.claim(10)).extracting(EnquiryJob::getSubject).containsExactly("third");
+        // All three are leased now
+        assertThat(queue.claim(10)).isEmpty();
+    }
+
+    @Test
+    void expiredLeaseIsClaimedAgain() {
+        EnquiryJob job = queue.enqueue("enquiry", "<p>hi</p>");
+        assertThat(queue.claim(1)).hasSize(1);
+
+        // The worker holding the lease died
+        mongo.template().updateFirst(query(where("_id").is(job.getId())),
+                new Update().set("lockedUntil", Instant.now().minusSeconds(1)), EnquiryJob.class);
+
+        List<EnquiryJob> reclaimed = queue.claim(1);
+        assertThat(reclaimed).extracting(EnquiryJob::getId).containsExactly(job.getId());
+        assertThat(reclaimed.get(0).getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void sendsBatchOverOneConnection() throws Exception {
+        CountingSender sender = sender(smtp.getSmtp().getPort());
+        for (int i = 0; i < 3; i++) {
+            queue.enqueue("Enquiry " + i, "<p>Message " + i + "</p>");
+        }
+
+        dispatcher(sender).send(queue.claim(10));
+
+        MimeMessage[] received = smtp.getReceivedMessages();
+        assertThat(received).extracting(MimeMessage::getSubject)
+                .containsExactlyInAnyOrder("Enquiry 0", "Enquiry 1", "Enquiry 2");
+        assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo("enquiries@example.com");
+        assertThat(sender.connections).isEqualTo(1);
+        assertThat(jobs.findAll()).allSatisfy(job -> {
+            assertThat(job.getStatus()).isEqualTo(EnquiryJob.Status.SENT);
+            assertThat(job.getSentAt()).isNotNull();
+            assertThat(job.getLockedUntil()).isNull();
+        });
+    }
+
+    @Test
+    void failedSendIsRetriedWithBackoff() throws Exception {
+        EnquiryJob job = queue.enqueue("enquiry", "<p>hi</p>");
+        EnquiryDispatcher down = dispatcher(sender(closedPort()));
+
+        down.send(queue.claim(10));
+
+        EnquiryJob failed = jobs.findById(job.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(EnquiryJob.Status.PENDING);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getLastError()).isNotBlank();
+        assertThat(failed.getLockedUntil()).isNull();
+        // Base backoff, +/-20% jitter
+        assertThat(Duration.between(Instant.now(), failed.getNextAttemptAt()))
+                .isBetween(Duration.ofSeconds(23), Duration.ofSeconds(36));
+        assertThat(queue.claim(10)).isEmpty();
+
+        dueSince(job, 1);
+        down.send(queue.claim(10));
+        // Doubled for the second attempt
+        assertThat(Duration.between(Instant.now(), jobs.findById(job.getId()).orElseThrow().getNextAttemptAt()))
+                .isBetween(Duration.ofSeconds(47), Duration.ofSeconds(72));
+
+        // Delivered once SMTP is back
+        dueSince(job, 1);
+        dispatcher(sender(smtp.getSmtp().getPort())).send(queue.claim(10));
+        assertThat(smtp.getReceivedMessages()).hasSize(1);
+        assertThat(jobs.findById(job.getId()).orElseThrow().getStatus()).isEqualTo(EnquiryJob.Status.SENT);
+    }
+
+    @Test
+    void jobIsParkedAfterMaxAttempts() throws Exception {
+        EnquiryJob job = queue.enqueue("enquiry", "<p>hi</p>");
+        EnquiryDispatcher down = dispatcher(sender(closedPort()));
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            dueSince(job, 1);
+            List<EnquiryJob> claimed = queue.claim(10);
+            assertThat(claimed).hasSize(1);
+            down.send(claimed);
+        }
+
+        EnquiryJob parked = jobs.findById(job.getId()).orElseThrow();
+        assertThat(parked.getStatus()).isEqualTo(EnquiryJob.Status.FAILED);
+        assertThat(parked.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+        dueSince(job, 1);
+        assertThat(queue.claim(10)).isEmpty();
+        assertThat(queue.stats()).containsEntry("failed", 1L).containsEntry("pending", 0L);
+    }
+
+    private EnquiryDispatcher dispatcher(JavaMailSender sender) {
+        return new EnquiryDispatcher(queue, sender, 1, 10, Duration.ofSeconds(1), new StandardEnvironment(),
+                new SimpleMeterRegistry());
+    }
+
+    private static CountingSender sender(int port) {
+        CountingSender sender = new CountingSender();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        Properties properties = new Properties();
+        properties.setProperty("mail.smtp.connectiontimeout", "2000");
+        properties.setProperty("mail.smtp.timeout", "2000");
+        sender.setJavaMailProperties(properties);
+        return sender;
+    }
+
+    // A port nothing listens on
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void dueSince(EnquiryJob job, int secondsAgo) {
+        mongo.template().updateFirst(query(where("_id").is(job.getId())),
+                new Update().set("nextAttemptAt", Instant.now().minusSeconds(secondsAgo)), EnquiryJob.class);
+    }
+}
@@ -0,0 +1,51 @@
+package com.bgmsons.backend.mail;
+
+import com.bgmsons.backend.model.EnquiryRollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rollup keys: the form's choices for industry and product interest, and
+ * hour and day buckets in the configured time zone.
+ */
+class EnquiryLogTest {
+
+    private static final List<String> CHOICES = List.of("Automotive", "Food & Beverage");
+
+    @Test
+    void knownChoicesKeepTheFormsSpelling() {
+        assertThat(EnquiryLog.choice("Automotive", CHOICES)).isEqualTo("Automotive");
+        assertThat(EnquiryLog.choice("food & beverage", CHOICES)).isEqualTo("Food & Beverage");
+    }
+
+    @Test
+    void anythingElseIsOther() {
+        assertThat(EnquiryLog.choice("Other", CHOICES)).isEqualTo(EnquiryLog.OTHER);
+        assertThat(EnquiryLog.choice("x".repeat(100), CHOICES)).isEqualTo(EnquiryLog.OTHER);
+    }
+
+    @Test
+    void missingOrPlaceholderIsNotCounted() {
+        assertThat(EnquiryLog.choice(null, CHOICES)).isNull();
+        assertThat(EnquiryLog.choice("Select Industry", CHOICES)).isNull();
+    }
+
+    @Test
+    void bucketsStartAtTheHourOrDayInTheZone() {
+        Instant instant = Instant.parse("2024-03-10T20:45:00Z");
+        ZoneId kolkata = ZoneId.of("Asia/Kolkata");
+
+        assertThat(EnquiryLog.bucket(instant, EnquiryRollup.Granularity.HOUR, kolkata))
+                .isEqualTo(Instant.parse("2024-03-10T20:30:00Z"));
+        assertThat(EnquiryLog.bucket(instant, EnquiryRollup.Granularity.DAY, kolkata))
+                .isEqualTo(Instant.parse("2024-03-10T18:30:00Z"));
+        assertThat(EnquiryLog.bucket(instant, EnquiryRollup.Granularity.DAY, ZoneId.of("UTC")))
+                .isEqualTo(Instant.parse("2024-03-10T00:00:00Z"));
+    }
+}
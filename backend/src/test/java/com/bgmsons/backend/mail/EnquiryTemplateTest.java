@@ -0,0 +1,93 @@
+package com.bgmsons.backend.mail;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rendering the enquiry email from the compiled template: every value is
+ * escaped for text and attribute context, and unset slots keep the
+ * template's own content.
+ */
+class EnquiryTemplateTest {
+
+    private static EnquiryTemplate template;
+
+    @BeforeAll
+    static void compile() throws IOException {
+        try (InputStream in = EnquiryTemplateTest.class.getResourceAsStream("/enquiry-template.html")) {
+            template = EnquiryTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void escapesTextSlots() {
+        String html = template.render(new EnquiryTemplate.Values()
+                .set(EnquiryTemplate.Slot.NAME, "<script>alert(\"x\")</script> & 'co'")
+                .set(EnquiryTemplate.Slot.MESSAGE, "</td></tr></table><img src=x onerror=alert(1)>"));
+
+        assertThat(html).doesNotContain("<script>", "<img");
+        assertThat(html).contains("&lt;script&gt;alert(&quot;x&quot;)&lt;/script&gt; &amp; &#39;co&#39;");
+        Document doc = Jsoup.parse(html);
+        assertThat(doc.getElementById("cust-name").text()).isEqualTo("<script>alert(\"x\")</script> & 'co'");
+        assertThat(doc.getElementById("message").text()).isEqualTo("</td></tr></table><img src=x onerror=alert(1)>");
+        assertThat(doc.getElementById("enquiry-details").select("tr")).hasSize(3);
+    }
+
+    @Test
+    void escapesAttributeSlots() {
+        String html = template.render(new EnquiryTemplate.Values()
+                .set(EnquiryTemplate.Slot.REPLY_TO, "mailto:a@example.com\" onclick=\"steal()")
+                .set(EnquiryTemplate.Slot.CALL_NOW, "tel:123' onmouseover='steal()"));
+
+        Document doc = Jsoup.parse(html);
+        assertThat(doc.getElementById("reply-to").attributes().hasKey("onclick")).isFalse();
+        assertThat(doc.getElementById("reply-to").attr("href")).isEqualTo("mailto:a@example.com\" onclick=\"steal()");
+        assertThat(doc.getElementById("call-now").attributes().hasKey("onmouseover")).isFalse();
+        assertThat(doc.getElementById("call-now").attr("href")).isEqualTo("tel:123' onmouseover='steal()");
+    }
+
+    @Test
+    void escapesExtraRowsAndKeepsTheirOrder() {
+        String html = template.render(new EnquiryTemplate.Values()
+                .rowAfterDate("Industry", "Food & Beverage")
+                .rowAfterDate("Company", "<b>ACME</b>")
+                .rowAfterName("Product Link", "https://example.com/products/1?a=1&b=2"));
+
+        assertThat(html).doesNotContain("<b>ACME</b>");
+        assertThat(html).contains("&lt;b&gt;ACME&lt;/b&gt;", "Food &amp; Beverage", "?a=1&amp;b=2");
+        // Each row goes directly after the date, ahead of the rows added before it
+        assertThat(html.indexOf("Company")).isLessThan(html.indexOf("Industry"));
+        assertThat(html.indexOf("enq-date")).isLessThan(html.indexOf("Company"));
+        assertThat(html.indexOf("cust-name")).isLessThan(html.indexOf("Product Link"));
+    }
+
+    @Test
+    void unsetSlotsKeepTemplateContent() {
+        Document doc = Jsoup.parse(template.render(new EnquiryTemplate.Values()));
+
+        assertThat(doc.getElementById("enquiry-type").text()).isEqualTo("[Enquiry Type]");
+        assertThat(doc.getElementById("cust-name").text()).isEqualTo("Not Provided");
+        assertThat(doc.getElementById("reply-to").attr("href")).isEqualTo("#");
+        assertThat(doc.getElementById("enquiry-details").select("tr")).hasSize(3);
+    }
+
+    @Test
+    void rendersDoNotLeakIntoEachOther() {
+        template.render(new EnquiryTemplate.Values()
+                .set(EnquiryTemplate.Slot.MESSAGE, "x".repeat(100_000))
+                .rowAfterDate("Company", "First Ltd"));
+
+        String html = template.render(new EnquiryTemplate.Values().set(EnquiryTemplate.Slot.NAME, "Second"));
+
+        assertThat(html).doesNotContain("First Ltd", "xxxx");
+        assertThat(Jsoup.parse(html).getElementById("cust-name").text()).isEqualTo("Second");
+    }
+}
@@ -0,0 +1,10 @@
+#!/bin/sh
+# Builds the backend and the benchmarks, then runs them. Extra arguments go to
+# JMH, e.g. ./run.sh EnquiryTemplate -p size=100
+set -e
+cd "$(dirname "$0")"
+mvn -B -q -f ../backend/pom.xml install -DskipTests
+mvn -B -q package
+export BGM_JWT_SECRET_KEY="${BGM_JWT_SECRET_KEY:-YmVuY2htYXJrLXNlY3JldC1rZXktZm9yLWp3dC10b2tlbnM=}"
+export BGM_DOMAIN="${BGM_DOMAIN:-localhost}"
+java -jar target/benchmarks.jar "$@"
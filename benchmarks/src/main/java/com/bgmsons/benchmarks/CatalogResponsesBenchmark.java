@@ -0,0 +1,115 @@
+package com.bgmsons.benchmarks;
+
+import com.bgmsons.backend.catalog.CatalogResponses;
+import com.bgmsons.backend.catalog.CatalogVersion;
+import com.bgmsons.backend.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-request cost of a catalogue GET body. {@code serializeAndGzip} is what
+ * every request paid with Tomcat's response compression: Jackson plus gzip at
+ * the default level. {@code cachedHit} is a {@link CatalogResponses} hit, and
+ * {@code cachedMiss} what the first request of a catalogue version pays
+ * (gzip and deflate at the best level). The body sizes are printed once per
+ * fork, as bytes on the wire are the other half of the saving.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogResponsesBenchmark {
+
+    @Param({"24", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private CatalogResponses catalogResponses;
+    private HttpServletRequest request;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same defaults as the mapper Spring Boot configures
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        catalogResponses = new CatalogResponses(objectMapper, new CatalogVersion(), new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(32));
+        // Only Accept-Encoding is read from the request
+        request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> "getHeader".equals(method.getName()) ? "gzip, deflate, br" : null);
+
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setId(String.format("%024x", i));
+            product.setName("Product " + i);
+            product.setCategory("industrial");
+            product.setSubcategory("equipment tags");
+            product.setImages(List.of("/api/images/" + String.format("%064x", i) + ".jpg"));
+            product.setCreated(LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            product.setDescription("Durable label for harsh environments. ".repeat(6));
+            product.setSpecification("Material: polyester; Adhesive: acrylic; Temperature: -40 to 150 C");
+            product.setFeatures("UV resistant, chemical resistant, custom sizes");
+            product.setVersion((long) i);
+            products.add(product);
+        }
+
+        byte[] identity = objectMapper.writeValueAsBytes(products);
+        System.out.printf("%n%d products: identity %d bytes, gzip per request %d bytes, cached gzip %d bytes%n",
+                size, identity.length, gzip(identity).length, cachedHit().getBody().length);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(products));
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> cachedHit() {
+        return catalogResponses.json(request, "products", () -> products);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> cachedMiss() {
+        return catalogResponses.json(request, new Object(), () -> products);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package com.bgmsons.benchmarks;
+
+import com.bgmsons.backend.util.MailUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enquiry email rendering through {@link MailUtil}, against the old
+ * parse-per-message Jsoup path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnquiryTemplateBenchmark {
+
+    private Map<String, String> enquiry;
+    private Map<String, String> productEnquiry;
+
+    @Setup
+    public void setUp() throws IOException {
+        enquiry = Map.of(
+                "name", "Priya Sharma",
+                "email", "priya@example.com",
+                "phone", "9876543210",
+                "company", "Sharma Industries <Pvt> Ltd",
+                "productInterest", "Equipment Tags",
+                "industry", "Automotive",
+                "message", "We need 5,000 \"heat resistant\" asset tags & matching labels.");
+        productEnquiry = Map.of(
+                "name", "Priya Sharma",
+                "email", "priya@example.com",
+                "phone", "9876543210",
+                "message", "Please share pricing for this label.",
+                "productId", "65f0c0ffee0000000000abcd");
+        MailUtil.loadTemplate();
+    }
+
+    @Benchmark
+    public String enquiry() throws IOException {
+        return MailUtil.createEnquiryMessage(enquiry);
+    }
+
+    @Benchmark
+    public String productEnquiry() throws IOException {
+        return MailUtil.createProductEnquiryMessage(productEnquiry);
+    }
+
+    @Benchmark
+    public String enquiryLegacyJsoup() throws IOException {
+        return LegacyEnquiryRenderer.createEnquiryMessage(enquiry);
+    }
+}
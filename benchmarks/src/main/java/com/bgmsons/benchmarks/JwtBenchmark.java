@@ -0,0 +1,77 @@
+package com.bgmsons.benchmarks;
+
+import com.bgmsons.backend.auth.TokenVerifier;
+import com.bgmsons.backend.util.JwtUtil;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. {@code isTokenValid} followed by
+ * {@code extractUsername} is what the auth filter used to do per request;
+ * {@code verifyCached} is what it does now for a token it has seen.
+ * Needs BGM_JWT_SECRET_KEY (base64) in the environment, like the backend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private String token;
+    private TokenVerifier tokenVerifier;
+
+    @Setup
+    public void setUp() {
+        if (System.getenv("BGM_JWT_SECRET_KEY") == null) {
+            throw new IllegalStateException("Set BGM_JWT_SECRET_KEY to run the JWT benchmarks");
+        }
+        token = JwtUtil.generateToken("admin");
+        tokenVerifier = new TokenVerifier(new SimpleMeterRegistry(), 10_000);
+        tokenVerifier.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return JwtUtil.generateToken("admin");
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return JwtUtil.isTokenValid(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return JwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public String validateThenExtract() {
+        return JwtUtil.isTokenValid(token) ? JwtUtil.extractUsername(token) : null;
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken verify() {
+        return JwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken verifyCached() {
+        return tokenVerifier.verify(token);
+    }
+}
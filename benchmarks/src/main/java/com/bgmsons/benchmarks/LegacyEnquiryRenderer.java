@@ -0,0 +1,53 @@
+package com.bgmsons.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * The enquiry rendering as it was before the template was compiled: read and
+ * parse the template with Jsoup for every message. Kept as the baseline for
+ * {@link EnquiryTemplateBenchmark}.
+ */
+final class LegacyEnquiryRenderer {
+
+    private LegacyEnquiryRenderer() {
+    }
+
+    static String createEnquiryMessage(Map<String, String> formData) throws IOException {
+        Document htmlDoc;
+        try (InputStream in = new ClassPathResource("enquiry-template.html").getInputStream()) {
+            htmlDoc = Jsoup.parse(in, "UTF-8", "");
+        }
+
+        htmlDoc.getElementById("enquiry-type").text("New Enquiry");
+        htmlDoc.getElementById("enq-date").text(new Date().toString());
+        htmlDoc.getElementById("cust-name").text(formData.get("name"));
+        htmlDoc.getElementById("reply-to").attr("href", "mailto:" + formData.get("email"));
+        htmlDoc.getElementById("call-now").attr("href", "tel:+91" + formData.get("phone"));
+        htmlDoc.getElementById("message").text(formData.get("message"));
+
+        Element dateElement = htmlDoc.getElementById("enq-date");
+        dateElement.after(row(htmlDoc, "Company", formData.get("company")));
+        dateElement.after(row(htmlDoc, "Product Interest", formData.get("productInterest")));
+        dateElement.after(row(htmlDoc, "Industry", formData.get("industry")));
+        return htmlDoc.toString();
+    }
+
+    private static Element row(Document htmlDoc, String key, String value) {
+        Element tableRow = htmlDoc.createElement("tr");
+        tableRow.appendElement("td")
+                .attr("style", "padding: 10px; border: 1px solid #dddddd; width: 30%; background-color: #f8f8f8; font-weight: bold;")
+                .text(key);
+        tableRow.appendElement("td")
+                .attr("style", "padding: 10px; border: 1px solid #dddddd;")
+                .text(value);
+        return tableRow;
+    }
+}
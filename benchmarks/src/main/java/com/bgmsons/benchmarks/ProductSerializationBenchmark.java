@@ -0,0 +1,87 @@
+package com.bgmsons.benchmarks;
+
+import com.bgmsons.backend.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of product lists, as done for GET /api/products on a
+ * response cache miss. "stored" products reference images by URL; "embedded"
+ * ones carry a base64 data URL, like products saved before the image store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    @Param({"stored", "embedded"})
+    private String images;
+
+    private ObjectMapper objectMapper;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the mapper Spring Boot configures
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Random random = new Random(42);
+        byte[] image = new byte[24 * 1024];
+        random.nextBytes(image);
+        String embedded = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(image);
+
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setId(String.format("%024x", i));
+            product.setName("Product " + i);
+            product.setCategory("industrial");
+            product.setSubcategory("equipment tags");
+            product.setImages(List.of("stored".equals(images)
+                    ? "/api/images/" + String.format("%064x", i) + ".jpg"
+                    : embedded));
+            product.setCreated(LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            product.setDescription("Durable label for harsh environments. ".repeat(6));
+            product.setSpecification("Material: polyester; Adhesive: acrylic; Temperature: -40 to 150 C");
+            product.setFeatures("UV resistant, chemical resistant, custom sizes");
+            product.setVersion((long) i);
+            products.add(product);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] serializeOne() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products.get(0));
+    }
+}
@@ -0,0 +1,53 @@
+// Writes a .gz and a .deflate copy next to every compressible file in dist/,
+// so the backend (bgm.frontend.dist) can serve them without compressing per
+// request. Runs after `vite build`; a copy that is not smaller is skipped.
+import { readdir, readFile, writeFile, rm } from 'node:fs/promises';
+import { extname, join } from 'node:path';
+import { constants, deflateSync, gzipSync } from 'node:zlib';
+
+const dist = process.argv[2] ?? 'dist';
+const COMPRESSIBLE = new Set([
+  '.html', '.js', '.mjs', '.css', '.json', '.map', '.svg', '.txt', '.xml', '.ico', '.webmanifest',
+]);
+// Below this the headers outweigh the saving
+const MIN_BYTES = 512;
+const options = { level: constants.Z_BEST_COMPRESSION };
+
+async function* files(dir) {
+  for (const entry of await readdir(dir, { withFileTypes: true })) {
+    const path = join(dir, entry.name);
+    if (entry.isDirectory()) {
+      yield* files(path);
+    } else if (entry.isFile()) {
+      yield path;
+    }
+  }
+}
+
+let count = 0;
+let before = 0;
+let after = 0;
+for await (const file of files(dist)) {
+  if (!COMPRESSIBLE.has(extname(file))) {
+    continue;
+  }
+  const content = await readFile(file);
+  if (content.length < MIN_BYTES) {
+    continue;
+  }
+  const variants = { '.gz': gzipSync(content, options), '.deflate': deflateSync(content, options) };
+  for (const [suffix, compressed] of Object.entries(variants)) {
+    if (compressed.length < content.length) {
+      await writeFile(file + suffix, compressed);
+    } else {
+      // Left over from an earlier build that did compress
+      await rm(file + suffix, { force: true });
+    }
+  }
+  count++;
+  before += content.length;
+  after += variants['.gz'].length;
+}
+
+console.log(`precompress: ${count} files in ${dist}, ` +
+  `${(before / 1024).toFixed(1)} kB -> ${(after / 1024).toFixed(1)} kB gzip`);
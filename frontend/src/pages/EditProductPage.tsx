@@ -16,10 +16,45 @@ const initialSubCategories = [
   { value: 'custom die-cut labels', label: 'Custom Die-Cut Labels' },
 ];
 
+const PATCHABLE_FIELDS = ['name', 'category', 'subcategory', 'created', 'description', 'specification', 'features'] as const;
+
+type ProductForm = {
+  name: string;
+  category: string;
+  subcategory: string;
+  images: string[];
+  created: string;
+  description: string;
+  specification: string;
+  features: string;
+  version?: number;
+};
+
+// Only the changed fields, so unchanged images are not uploaded again
+const buildPatch = (original: ProductForm, form: ProductForm) => {
+  const patch: Record<string, unknown> = { version: original.version };
+  for (const field of PATCHABLE_FIELDS) {
+    if (form[field] !== original[field]) patch[field] = form[field];
+  }
+  const before = original.images.filter(Boolean);
+  const after = form.images.filter(Boolean);
+  const added = after.filter(img => !before.includes(img));
+  const removed = before.filter(img => !after.includes(img));
+  if (added.length && !removed.length) {
+    patch.addImages = added;
+  } else if (removed.length && !added.length) {
+    patch.removeImages = removed;
+  } else if (added.length || removed.length) {
+    patch.images = after;
+  }
+  return patch;
+};
+
 const EditProductPage = () => {
   const { id } = useParams();
   const navigate = useNavigate();
-  const [form, setForm] = useState({
+  const [original, setOriginal] = useState<ProductForm | null>(null);
+  const [form, setForm] = useState<ProductForm>({
     name: '',
     category: 'automotive',
     subcategory: '',
@@ -47,7 +82,9 @@ const EditProductPage = () => {
         const res = await fetch(`/api/products/${id}`);
         if (!res.ok) throw new Error('Not found');
         const product = await res.json();
-        setForm({ ...product, images: product.images && product.images.length ? product.images : [''] });
+        const loaded = { ...product, images: product.images && product.images.length ? product.images : [''] };
+        setForm(loaded);
+        setOriginal(loaded);
         setNotFound(false);
       } catch {
         setNotFound(true);
@@ -151,10 +188,14 @@ const EditProductPage = () => {
     try {
       const token = localStorage.getItem('adminToken');
       const res = await fetch(`/api/products/${id}`, {
-        method: 'PUT',
+        method: 'PATCH',
         headers: { 'Content-Type': 'application/json', 'Authorization': `Bearer ${token}` },
-        body: JSON.stringify({ ...form, images: form.images.filter(Boolean) }),
+        body: JSON.stringify(original ? buildPatch(original, form) : { ...form, images: form.images.filter(Boolean) }),
       });
+      if (res.status === 409) {
+        setError('This product was changed by someone else. Reload the page to see the latest version.');
+        return;
+      }
       if (!res.ok) throw new Error('Failed to update product');
       navigate('/admin/dashboard');
     } catch {
@@ -1,19 +1,20 @@
 import  { useEffect, useState } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { Truck, AlignCenterVertical as Certificate, Clock, Zap } from 'lucide-react';
+import { sizedImage } from '../utils/images';
 
-interface Product {
+// Compact listing view served by /api/products/summary
+interface ProductSummary {
   id: string;
   name: string;
   category: string;
   subcategory?: string;
   images: string[];
-  created: string;
-  description: string;
-  specification: string;
-  features: string;
 }
 
+// Newest products, one small page instead of the whole catalogue
+const FEATURED_URL = '/api/products/summary?size=6&sort=created,desc';
+
 const HomePage = () => {
   const strengths = [
     {
@@ -38,16 +39,16 @@ const HomePage = () => {
     }
   ];
 
-  const [products, setProducts] = useState<Product[]>([]);
+  const [products, setProducts] = useState<ProductSummary[]>([]);
   const navigate = useNavigate();
 
   useEffect(() => {
     const fetchProducts = async () => {
       try {
-        const res = await fetch('/api/products');
+        const res = await fetch(FEATURED_URL);
         if (!res.ok) throw new Error('Failed to fetch products');
         const data = await res.json();
-        setProducts(data);
+        setProducts(data.content);
       } catch {
         setProducts([]);
       }
@@ -140,11 +141,11 @@ const HomePage = () => {
                 className="bg-white rounded-2xl shadow-xl p-6 flex flex-col cursor-pointer hover:shadow-2xl hover:-translate-y-1 transition"
                 onClick={() => navigate(`/products/${product.id}`)}
               >
-                <img src={product.images?.[0]} alt={product.name} className="h-40 w-full object-cover rounded-lg mb-4 border border-gray-100" />
+                <img src={sizedImage(product.images?.[0], 480)} alt={product.name} className="h-40 w-full object-cover rounded-lg mb-4 border border-gray-100" />
                 <div className="flex-1">
                   <h3 className="text-xl font-bold text-blue-900 mb-2">{product.name}</h3>
                   <div className="text-sm text-blue-700 font-semibold mb-2">{product.category}</div>
-                  <p className="text-gray-700 text-sm line-clamp-3">{product.description}</p>
+                  {product.subcategory && <p className="text-gray-700 text-sm">{product.subcategory}</p>}
                 </div>
               </div>
             ))}
@@ -1,5 +1,6 @@
 import React, { useEffect, useState } from 'react';
-import { useParams } from 'react-router-dom';
+import { Link, useParams } from 'react-router-dom';
+import { sizedImage } from '../utils/images';
 
 interface Product {
   id: string;
@@ -13,11 +14,20 @@ interface Product {
   features: string;
 }
 
+interface RelatedProduct {
+  id: string;
+  name: string;
+  category: string;
+  subcategory?: string;
+  images: string[];
+}
+
 const ProductDetailsPage = () => {
   const { id } = useParams<{ id: string }>();
   const [product, setProduct] = useState<Product | null>(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
+  const [related, setRelated] = useState<RelatedProduct[]>([]);
 
   const [formErrors, setFormErrors] = useState<Record<string, string>>({});
   const [isSubmitting, setIsSubmitting] = useState(false);
@@ -49,6 +59,18 @@ useEffect(() => {
     if (id) fetchProduct();
    }, [id]);
 
+  // Precomputed on the server, so this is one small extra request
+  useEffect(() => {
+    if (!id) return;
+    const controller = new AbortController();
+    setRelated([]);
+    fetch(`/api/products/${id}/related?limit=6`, { signal: controller.signal })
+      .then((res) => (res.ok ? res.json() : []))
+      .then(setRelated)
+      .catch(() => {});
+    return () => controller.abort();
+  }, [id]);
+
   const validateForm = () => {
     const errors: Record<string, string> = {};
     
@@ -163,6 +185,35 @@ useEffect(() => {
           </div>
         </div>
       </div>
+      {/* Related Products */}
+      {related.length > 0 && (
+        <div className="mt-12">
+          <h2 className="text-2xl font-bold text-blue-900 mb-4">Related products</h2>
+          <div className="grid grid-cols-2 md:grid-cols-3 gap-6">
+            {related.map((item) => (
+              <Link
+                key={item.id}
+                to={`/products/${item.id}`}
+                className="bg-white rounded-xl shadow hover:shadow-lg transition-shadow overflow-hidden"
+                style={{ textDecoration: 'none', color: 'inherit' }}
+              >
+                <img
+                  src={sizedImage(item.images?.[0], 320) || '/placeholder.png'}
+                  alt={item.name}
+                  loading="lazy"
+                  className="w-full h-40 object-cover"
+                />
+                <div className="p-3">
+                  <div className="font-semibold text-blue-900 truncate">{item.name}</div>
+                  <div className="text-sm text-gray-500 truncate">
+                    {item.category}{item.subcategory ? ` · ${item.subcategory}` : ''}
+                  </div>
+                </div>
+              </Link>
+            ))}
+          </div>
+        </div>
+      )}
       {/* Enquiry Form */}
       <div className="mt-12 bg-white rounded-2xl shadow-xl p-8 max-w-2xl mx-auto">
         <h2 className="text-2xl font-bold text-blue-900 mb-4">Enquire about this product</h2>
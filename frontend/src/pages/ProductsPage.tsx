@@ -1,69 +1,142 @@
 import { useState, useEffect } from 'react';
 import { useLocation, Link } from 'react-router-dom';
+import { sizedImage } from '../utils/images';
 
-interface Product {
+interface Suggestion {
   id: string;
   name: string;
   category: string;
   subcategory?: string;
   images: string[];
-  description: string;
-  features: string;
-  specification: string;
 }
 
+// Compact listing view served by /api/products/summary
+interface ProductSummary {
+  id: string;
+  name: string;
+  category: string;
+  subcategory?: string;
+  images: string[];
+}
+
+interface ProductPage {
+  content: ProductSummary[];
+  page: number;
+  last: boolean;
+}
+
+interface ProductFacet {
+  category: string;
+  count: number;
+}
+
+const PAGE_SIZE = 24;
+
+// Filtering, text search and paging all run on the server
+const summaryUrl = (category: string, term: string, page: number) => {
+  const params = new URLSearchParams({ page: String(page), size: String(PAGE_SIZE) });
+  if (category !== 'all') params.set('category', category);
+  if (term) params.set('q', term);
+  return `/api/products/summary?${params}`;
+};
+
 const ProductsPage = () => {
   const location = useLocation();
   const [activeCategory, setActiveCategory] = useState('all');
   const [searchTerm, setSearchTerm] = useState('');
-  const [filteredProducts, setFilteredProducts] = useState<Product[]>([]);
-  const [products, setProducts] = useState<Product[]>([]);
+  const [suggestions, setSuggestions] = useState<Suggestion[]>([]);
+  const [showSuggestions, setShowSuggestions] = useState(false);
+  const [products, setProducts] = useState<ProductSummary[]>([]);
+  const [page, setPage] = useState(0);
+  const [lastPage, setLastPage] = useState(true);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState('');
   const [categories, setCategories] = useState<{ id: string; name: string }[]>([
     { id: 'all', name: 'All Products' }
   ]);
 
+  // Category buttons from the facet counts, without loading any products
   useEffect(() => {
-    const fetchProducts = async () => {
-      setLoading(true);
-      setError('');
+    const fetchFacets = async () => {
       try {
-        const res = await fetch('/api/products');
-        if (!res.ok) throw new Error('Failed to fetch products');
-        const data = await res.json();
-        setProducts(data);
-        // Extract unique categories from products
-        const uniqueCategories = Array.from(new Set(data.map((p: Product) => p.category))).filter(Boolean) as string[];
+        const res = await fetch('/api/products/facets');
+        if (!res.ok) throw new Error('Failed to fetch categories');
+        const facets: ProductFacet[] = await res.json();
         setCategories([
           { id: 'all', name: 'All Products' },
-          ...uniqueCategories.map((cat) => ({ id: cat, name: cat.charAt(0).toUpperCase() + cat.slice(1) }))
+          ...facets
+            .filter((facet) => facet.category)
+            .map((facet) => ({ id: facet.category, name: facet.category.charAt(0).toUpperCase() + facet.category.slice(1) }))
         ]);
-      } catch (err: any) {
-        setError(err.message || 'Error loading products');
-      } finally {
-        setLoading(false);
+      } catch {
+        // The grid still works without the category buttons
       }
     };
-    fetchProducts();
+    fetchFacets();
   }, []);
 
-  // Filter products based on category and search term
+  // First page for the current category and search, debounced while typing
   useEffect(() => {
-    let filtered = products;
-    if (activeCategory !== 'all') {
-      filtered = filtered.filter(product => product.category === activeCategory);
+    const controller = new AbortController();
+    const timer = setTimeout(async () => {
+      setError('');
+      try {
+        const res = await fetch(summaryUrl(activeCategory, searchTerm.trim(), 0), { signal: controller.signal });
+        if (!res.ok) throw new Error('Failed to fetch products');
+        const data: ProductPage = await res.json();
+        setProducts(data.content);
+        setPage(data.page);
+        setLastPage(data.last);
+      } catch (err: any) {
+        if (err.name !== 'AbortError') setError(err.message || 'Error loading products');
+      } finally {
+        if (!controller.signal.aborted) setLoading(false);
+      }
+    }, searchTerm ? 250 : 0);
+    return () => {
+      clearTimeout(timer);
+      controller.abort();
+    };
+  }, [activeCategory, searchTerm]);
+
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const res = await fetch(summaryUrl(activeCategory, searchTerm.trim(), page + 1));
+      if (!res.ok) throw new Error('Failed to fetch products');
+      const data: ProductPage = await res.json();
+      setProducts((current) => [...current, ...data.content]);
+      setPage(data.page);
+      setLastPage(data.last);
+    } catch (err: any) {
+      setError(err.message || 'Error loading products');
+    } finally {
+      setLoadingMore(false);
     }
-    if (searchTerm) {
-      const term = searchTerm.toLowerCase();
-      filtered = filtered.filter(product =>
-        product.name.toLowerCase().includes(term) ||
-        product.description.toLowerCase().includes(term) ||
-        (product.subcategory && product.subcategory.toLowerCase().includes(term))
-      );
+  };
+
+  // Typeahead suggestions from the backend index, debounced and cancelled as the user types
+  useEffect(() => {
+    const term = searchTerm.trim();
+    if (!term) {
+      setSuggestions([]);
+      return;
     }
-    setFilteredProducts(filtered);
-  }, [activeCategory, searchTerm, products]);
+    const controller = new AbortController();
+    const timer = setTimeout(async () => {
+      try {
+        const res = await fetch(`/api/products/suggest?q=${encodeURIComponent(term)}&limit=6`, { signal: controller.signal });
+        if (res.ok) setSuggestions(await res.json());
+      } catch {
+        // Aborted or offline; the grid search still works
+      }
+    }, 120);
+    return () => {
+      clearTimeout(timer);
+      controller.abort();
+    };
+  }, [searchTerm]);
 
   // Check for hash in URL to set initial active category
   useEffect(() => {
@@ -105,8 +178,35 @@ const ProductsPage = () => {
                   placeholder="Search products..."
                   value={searchTerm}
                   onChange={(e) => setSearchTerm(e.target.value)}
+                  onFocus={() => setShowSuggestions(true)}
+                  onBlur={() => setTimeout(() => setShowSuggestions(false), 150)}
                   className="w-full md:w-80 px-4 py-2 border border-gray-300 rounded-lg focus:outline-none focus:ring-2 focus:ring-blue-500"
                 />
+                {showSuggestions && suggestions.length > 0 && (
+                  <ul className="absolute z-20 mt-1 w-full md:w-80 bg-white border border-gray-200 rounded-lg shadow-lg overflow-hidden">
+                    {suggestions.map((suggestion) => (
+                      <li key={suggestion.id}>
+                        <Link
+                          to={`/products/${suggestion.id}`}
+                          className="flex items-center gap-3 px-3 py-2 hover:bg-blue-50"
+                          style={{ textDecoration: 'none', color: 'inherit' }}
+                        >
+                          <img
+                            src={sizedImage(suggestion.images?.[0], 160) || '/placeholder.png'}
+                            alt=""
+                            className="w-10 h-10 object-cover rounded"
+                          />
+                          <div className="min-w-0">
+                            <div className="text-sm font-semibold text-blue-900 truncate">{suggestion.name}</div>
+                            <div className="text-xs text-gray-500 truncate">
+                              {suggestion.category}{suggestion.subcategory ? ` · ${suggestion.subcategory}` : ''}
+                            </div>
+                          </div>
+                        </Link>
+                      </li>
+                    ))}
+                  </ul>
+                )}
                 <button className="absolute right-3 top-2 text-gray-500">
                   <svg xmlns="http://www.w3.org/2000/svg" className="h-6 w-6" fill="none" viewBox="0 0 24 24" stroke="currentColor">
                     <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M21 21l-6-6m2-5a7 7 0 11-14 0 7 7 0 0114 0z" />
@@ -137,7 +237,7 @@ const ProductsPage = () => {
           </div>
           {/* Products Grid */}
           <div className="grid grid-cols-1 sm:grid-cols-2 lg:grid-cols-3 gap-8">
-            {filteredProducts.map((product) => (
+            {products.map((product) => (
               <Link
                 key={product.id}
                 to={`/products/${product.id}`}
@@ -147,7 +247,7 @@ const ProductsPage = () => {
               >
                 <div className="h-64 overflow-hidden">
   <img
-    src={product.images?.[0] || '/placeholder.png'}
+    src={sizedImage(product.images?.[0], 640) || '/placeholder.png'}
                     alt={product.name}
                     className="w-full h-full object-cover transform transition-transform duration-500 hover:scale-110"
                   />
@@ -158,24 +258,23 @@ const ProductsPage = () => {
                     <span className="text-xs bg-blue-100 text-blue-800 px-2 py-1 rounded-full">{product.category}</span>
                   </div>
                   <h3 className="text-xl font-bold text-blue-900 mb-3">{product.name}</h3>
-                  <p className="text-gray-700 mb-4">{product.description}</p>
-                  <div className="mb-6">
-                    <h4 className="font-semibold text-blue-900 mb-2">Key Features:</h4>
-                    <ul className="space-y-1">
-                      {product.features?.split('\n').map((feature, index) => (
-                        <li key={index} className="flex items-start text-sm">
-                          <span className="text-blue-600 mr-2">✓</span>
-                          <span>{feature}</span>
-                        </li>
-                      ))}
-                    </ul>
-                  </div>
                   {/* Optionally, add a button or CTA here if needed */}
                 </div>
               </Link>
             ))}
           </div>
-          {filteredProducts.length === 0 && (
+          {!lastPage && (
+            <div className="text-center mt-12">
+              <button
+                onClick={loadMore}
+                disabled={loadingMore}
+                className="bg-blue-900 hover:bg-blue-800 disabled:opacity-60 text-white font-bold py-3 px-8 rounded-lg transition-colors duration-300"
+              >
+                {loadingMore ? 'Loading...' : 'Load more products'}
+              </button>
+            </div>
+          )}
+          {products.length === 0 && (
             <div className="text-center py-12">
               <h3 className="text-xl font-bold text-gray-700 mb-2">No products found</h3>
               <p className="text-gray-600">Try adjusting your search or filter criteria.</p>
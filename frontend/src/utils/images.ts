@@ -0,0 +1,6 @@
+// Product images stored by the backend can be requested at a smaller width.
+// External URLs and legacy data URLs are returned unchanged.
+export const sizedImage = (src: string | undefined, width: number) => {
+  if (!src || !src.startsWith('/api/images/')) return src;
+  return `${src}?w=${width}`;
+};
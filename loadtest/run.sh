@@ -0,0 +1,13 @@
+#!/bin/sh
+# Builds the backend and the harness, then runs a load test. Arguments go to
+# LoadTest, e.g. ./run.sh --products=100000 --rate=500 --out=results/baseline.json
+set -e
+cd "$(dirname "$0")"
+mvn -B -q -f ../backend/pom.xml install -DskipTests
+mvn -B -q package
+# Test values; the backend reads these from the environment
+export BGM_JWT_SECRET_KEY="${BGM_JWT_SECRET_KEY:-bG9hZHRlc3Qtc2VjcmV0LWtleS1mb3Itand0LXRva2Vucw==}"
+export BGM_MAIL_ID="${BGM_MAIL_ID:-enquiries@example.com}"
+export BGM_SMTP_USERNAME="${BGM_SMTP_USERNAME:-loadtest}"
+export BGM_DOMAIN="${BGM_DOMAIN:-localhost}"
+exec java ${JAVA_OPTS:--Xmx4g} -jar target/loadtest.jar "$@"
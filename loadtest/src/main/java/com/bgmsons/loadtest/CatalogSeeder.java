@@ -0,0 +1,146 @@
+package com.bgmsons.loadtest;
+
+import com.bgmsons.backend.catalog.CatalogChangedEvent;
+import com.bgmsons.backend.image.ImageService;
+import com.bgmsons.backend.model.Admin;
+import com.bgmsons.backend.model.Product;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the running backend with an admin account and a synthetic catalogue.
+ * Products share a pool of generated JPEG photos (about 100-400 KB each,
+ * stored through {@link ImageService}), like real catalogues that reuse
+ * product shots. A fixed seed makes every run see the same data.
+ */
+final class CatalogSeeder {
+
+    static final String ADMIN_USERNAME = "loadtest";
+    static final String ADMIN_PASSWORD = "loadtest";
+    static final List<String> CATEGORIES = List.of("automotive", "industrial", "branding", "custom");
+    static final List<String> SUBCATEGORIES = List.of("warning & safety labels", "product branding labels",
+            "equipment tags", "custom die-cut labels");
+
+    private static final int IMAGE_POOL = 24;
+    private static final int BATCH = 1_000;
+    private static final String WORDS = "durable label industrial adhesive polyester vinyl print resistant "
+            + "chemical outdoor custom tag asset barcode laminated matte gloss heat resistant die-cut ";
+
+    private final Random random = new Random(20240101L);
+    private final List<String> images = new ArrayList<>();
+    private final List<String> productIds = new ArrayList<>();
+
+    List<String> images() {
+        return images;
+    }
+
+    List<String> productIds() {
+        return productIds;
+    }
+
+    void seed(ConfigurableApplicationContext context, int products) {
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        ImageService imageService = context.getBean(ImageService.class);
+
+        Admin admin = new Admin();
+        admin.setUsername(ADMIN_USERNAME);
+        admin.setPassword(new BCryptPasswordEncoder().encode(ADMIN_PASSWORD));
+        mongoTemplate.save(admin);
+
+        for (int i = 0; i < IMAGE_POOL; i++) {
+            images.add(imageService.store(photo(), "image/jpeg"));
+        }
+
+        List<Product> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < products; i++) {
+            batch.add(product(i));
+            if (batch.size() == BATCH) {
+                insert(mongoTemplate, batch);
+            }
+        }
+        insert(mongoTemplate, batch);
+        context.publishEvent(CatalogChangedEvent.bulk());
+    }
+
+    private void insert(MongoTemplate mongoTemplate, List<Product> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Product product : mongoTemplate.insert(batch, Product.class)) {
+            productIds.add(product.getId());
+        }
+        batch.clear();
+    }
+
+    private Product product(int index) {
+        Product product = new Product();
+        product.setName("Label " + index + " " + words(2));
+        product.setCategory(CATEGORIES.get(random.nextInt(CATEGORIES.size())));
+        product.setSubcategory(SUBCATEGORIES.get(random.nextInt(SUBCATEGORIES.size())));
+        List<String> productImages = new ArrayList<>();
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            productImages.add(images.get(random.nextInt(images.size())));
+        }
+        product.setImages(productImages);
+        product.setCreated(LocalDate.of(2023, 1, 1).plusDays(random.nextInt(700)));
+        product.setDescription(words(40 + random.nextInt(160)));
+        product.setSpecification(words(20 + random.nextInt(40)));
+        product.setFeatures(words(10 + random.nextInt(30)));
+        product.setVersion(0L);
+        return product;
+    }
+
+    private String words(int count) {
+        String[] vocabulary = WORDS.trim().split(" ");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    private byte[] photo() {
+        int width = 1200 + random.nextInt(800);
+        int height = width * 3 / 4;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, randomColor(), width, height, randomColor()));
+        graphics.fillRect(0, 0, width, height);
+        // Detail so the JPEG compresses like a photo rather than a flat gradient
+        for (int i = 0; i < 400; i++) {
+            graphics.setColor(randomColor());
+            graphics.fillOval(random.nextInt(width), random.nextInt(height), 10 + random.nextInt(120), 10 + random.nextInt(120));
+        }
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpeg", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private Color randomColor() {
+        return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+    }
+}
@@ -0,0 +1,115 @@
+package com.bgmsons.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests start on a fixed schedule at the target
+ * rate, whether or not earlier ones have finished, the way independent users
+ * arrive. Latency is measured from each request's scheduled start, so a
+ * stalled server is charged for the queueing it causes (no coordinated
+ * omission).
+ */
+final class LoadGenerator {
+
+    private final HttpClient client;
+    private final Workload workload;
+    private final double rate;
+    private final int maxInFlight;
+    private final Map<String, Recorder> latencies = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    LoadGenerator(HttpClient client, Workload workload, double rate, int maxInFlight) {
+        this.client = client;
+        this.workload = workload;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+        for (String name : workload.names()) {
+            latencies.put(name, new Recorder(TimeUnit.MINUTES.toNanos(1), 3));
+            errors.put(name, new LongAdder());
+        }
+    }
+
+    /**
+     * Runs the warmup, discards what it recorded, then runs and records the
+     * measured phase.
+     */
+    RunReport run(Duration warmup, Duration duration, Map<String, Object> settings) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(7);
+        drive(warmup, random);
+        reset();
+
+        long start = System.nanoTime();
+        drive(duration, random);
+        awaitInFlight();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        Map<String, Long> errorCounts = new LinkedHashMap<>();
+        for (String name : latencies.keySet()) {
+            histograms.put(name, latencies.get(name).getIntervalHistogram());
+            errorCounts.put(name, errors.get(name).sum());
+        }
+        return RunReport.of(settings, seconds, dropped.sum(), histograms, errorCounts);
+    }
+
+    private void drive(Duration duration, SplittableRandom random) {
+        long interval = (long) (1e9 / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+            if (scheduled >= end) {
+                return;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Workload.Operation operation = workload.next(random);
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                // The client is saturated; count it instead of queueing without bound
+                inFlight.decrementAndGet();
+                dropped.increment();
+                continue;
+            }
+            client.sendAsync(operation.request().apply(random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long latency = System.nanoTime() - scheduled;
+                        latencies.get(operation.name()).recordValue(Math.min(latency, TimeUnit.MINUTES.toNanos(1)));
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.get(operation.name()).increment();
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+    }
+
+    private void reset() throws InterruptedException {
+        awaitInFlight();
+        latencies.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+        dropped.reset();
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
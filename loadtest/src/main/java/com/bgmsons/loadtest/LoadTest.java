@@ -0,0 +1,189 @@
+package com.bgmsons.loadtest;
+
+import com.bgmsons.backend.BackendApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Boots the backend in-process against an in-memory Mongo stand-in and an
+ * SMTP sink, seeds a catalogue, drives an open-model request mix at it and
+ * reports throughput and latency percentiles. Nothing leaves the machine.
+ *
+ * <pre>
+ *   --products=10000        catalogue size (e.g. 100, 10000, 100000)
+ *   --rate=200              requests started per second
+ *   --warmup=15s --duration=60s
+ *   --mix=browse=45,detail=30,image=15,enquiry=5,edit=5
+ *   --virtual               run the backend on virtual threads
+ *   --mongo-uri=mongodb://… use a real mongod instead of the in-memory one
+ *   --out=results/x.json    where to write the report
+ *   --compare=a.json,b.json compare two earlier reports and exit
+ * </pre>
+ *
+ * The in-memory Mongo has very different performance from mongod, so use
+ * {@code --mongo-uri} when database time matters. Generator and server share
+ * the JVM and the CPU; compare runs made on the same machine.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        if (options.containsKey("compare")) {
+            String[] files = options.get("compare").split(",");
+            if (files.length != 2) {
+                throw new IllegalArgumentException("--compare needs two reports: --compare=base.json,candidate.json");
+            }
+            RunReport.read(Path.of(files[0])).compare(RunReport.read(Path.of(files[1])), System.out);
+            return;
+        }
+        for (String variable : List.of("BGM_JWT_SECRET_KEY", "BGM_MAIL_ID", "BGM_SMTP_USERNAME", "BGM_DOMAIN")) {
+            if (System.getenv(variable) == null) {
+                throw new IllegalStateException(variable + " is not set; run.sh sets test values for all backend variables");
+            }
+        }
+
+        int products = Integer.parseInt(options.getOrDefault("products", "10000"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration warmup = duration(options.getOrDefault("warmup", "15s"));
+        Duration duration = duration(options.getOrDefault("duration", "60s"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "20000"));
+        boolean virtual = Boolean.parseBoolean(options.getOrDefault("virtual", "false"));
+        Map<String, Integer> mix = options.containsKey("mix") ? mix(options.get("mix")) : Workload.DEFAULT_MIX;
+        Path out = Path.of(options.getOrDefault("out",
+                "results/run-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json"));
+
+        String mongoUri = options.get("mongo-uri");
+        MongoServer mongo = null;
+        if (mongoUri == null) {
+            mongo = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = mongo.bind();
+            mongoUri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/loadtest";
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("products", products);
+        settings.put("rate", rate);
+        settings.put("warmup", warmup.toString());
+        settings.put("duration", duration.toString());
+        settings.put("mix", new TreeMap<>(mix));
+        settings.put("mongo", mongo != null ? "in-memory" : "external");
+        settings.put("java", Runtime.version().toString());
+
+        Path work = Files.createTempDirectory("bgm-loadtest");
+        try (SmtpSink smtp = new SmtpSink()) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("server.port", 0);
+            properties.put("spring.data.mongodb.uri", mongoUri);
+            properties.put("spring.mail.host", "localhost");
+            properties.put("spring.mail.port", smtp.port());
+            properties.put("bgm.images.store", "filesystem");
+            properties.put("bgm.images.dir", work.resolve("images").toString());
+            properties.put("bgm.images.cache-dir", work.resolve("variants").toString());
+            properties.put("spring.main.banner-mode", "off");
+            properties.put("logging.level.root", "WARN");
+
+            System.out.printf("Starting backend (%s Mongo, SMTP sink on %d)%n", settings.get("mongo"), smtp.port());
+            // As an argument, since application.properties sets it and would override a default property
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                    .properties(properties)
+                    .run("--spring.threads.virtual.enabled=" + virtual);
+            try {
+                // Record what the server runs on, not what was asked for
+                boolean virtualThreads = Threading.VIRTUAL.isActive(context.getEnvironment());
+                if (virtual && !virtualThreads) {
+                    throw new IllegalStateException("--virtual needs Java 21 or newer, running on " + Runtime.version());
+                }
+                settings.put("virtualThreads", virtualThreads);
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                System.out.printf("Seeding %d products%n", products);
+                CatalogSeeder seeder = new CatalogSeeder();
+                seeder.seed(context, products);
+
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                Workload workload = new Workload(baseUrl, mix, seeder.productIds(), seeder.images(), login(client, baseUrl));
+
+                System.out.printf("Running %.0f req/s: %s warmup, %s measured%n", rate, warmup, duration);
+                RunReport report = new LoadGenerator(client, workload, rate, maxInFlight).run(warmup, duration, settings);
+                report.print(System.out);
+                report.write(out);
+                System.out.printf("SMTP sink received %d messages. Report written to %s%n", smtp.messages(), out);
+            } finally {
+                context.close();
+            }
+        } finally {
+            if (mongo != null) {
+                mongo.shutdownNow();
+            }
+            FileSystemUtils.deleteRecursively(work);
+        }
+    }
+
+    private static String login(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        String body = new ObjectMapper().writeValueAsString(Map.of(
+                "username", CatalogSeeder.ADMIN_USERNAME, "password", CatalogSeeder.ADMIN_PASSWORD));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/admin/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Admin login failed with " + response.statusCode() + ": " + response.body());
+        }
+        return new ObjectMapper().readTree(response.body()).get("token").asText();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Map<String, Integer> mix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] weight = part.split("=");
+            mix.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Duration duration(String value) {
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+}
@@ -0,0 +1,93 @@
+package com.bgmsons.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles of one run, per operation and overall.
+ * Written as JSON so runs can be compared later with {@code --compare}.
+ */
+record RunReport(Map<String, Object> settings, double seconds, long dropped, Map<String, Stats> operations) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record Stats(long count, long errors, double throughput, double p50, double p90, double p99, double p999, double max) {
+
+        static Stats of(Histogram histogram, long errors, double seconds) {
+            return new Stats(histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 1e4) / 100.0;
+        }
+    }
+
+    static RunReport of(Map<String, Object> settings, double seconds, long dropped,
+                        Map<String, Histogram> histograms, Map<String, Long> errors) {
+        Map<String, Stats> operations = new LinkedHashMap<>();
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            long operationErrors = errors.get(entry.getKey());
+            operations.put(entry.getKey(), Stats.of(entry.getValue(), operationErrors, seconds));
+            all.add(entry.getValue());
+            allErrors += operationErrors;
+        }
+        operations.put("all", Stats.of(all, allErrors, seconds));
+        return new RunReport(settings, seconds, dropped, operations);
+    }
+
+    static RunReport read(Path path) throws IOException {
+        return MAPPER.readValue(path.toFile(), RunReport.class);
+    }
+
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        MAPPER.writeValue(path.toFile(), this);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%s, %.1fs measured, %d dropped%n", settings, seconds, dropped);
+        out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        operations.forEach((name, stats) -> out.printf("%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, stats.count(), stats.errors(), stats.throughput(),
+                stats.p50(), stats.p90(), stats.p99(), stats.p999(), stats.max()));
+    }
+
+    /**
+     * Prints throughput and tail latency of {@code candidate} relative to this
+     * run, per operation both have.
+     */
+    void compare(RunReport candidate, PrintStream out) {
+        out.printf("%-8s %21s %21s %21s%n", "op", "req/s", "p99 ms", "p99.9 ms");
+        operations.forEach((name, base) -> {
+            Stats other = candidate.operations().get(name);
+            if (other != null) {
+                out.printf("%-8s %21s %21s %21s%n", name,
+                        change(base.throughput(), other.throughput()),
+                        change(base.p99(), other.p99()),
+                        change(base.p999(), other.p999()));
+            }
+        });
+    }
+
+    private static String change(double base, double candidate) {
+        String percent = base == 0 ? "n/a" : String.format("%+.1f%%", (candidate - base) * 100 / base);
+        return String.format("%.1f->%.1f %s", base, candidate, percent);
+    }
+}
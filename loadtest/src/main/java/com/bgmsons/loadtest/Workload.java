@@ -0,0 +1,105 @@
+package com.bgmsons.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * The request mix. Each operation has a weight; {@link #next} picks one at
+ * random in proportion and builds its request.
+ */
+final class Workload {
+
+    static final Map<String, Integer> DEFAULT_MIX = Map.of(
+            "browse", 45, "detail", 30, "image", 15, "enquiry", 5, "edit", 5);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    record Operation(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+    private final int totalWeight;
+
+    Workload(String baseUrl, Map<String, Integer> mix, List<String> productIds, List<String> images, String token) {
+        int pages = Math.max(1, productIds.size() / 24);
+        Map<String, Function<SplittableRandom, HttpRequest>> builders = new LinkedHashMap<>();
+
+        // Catalogue listing, a third of it filtered by category
+        builders.put("browse", random -> {
+            String category = random.nextInt(3) == 0
+                    ? "&category=" + CatalogSeeder.CATEGORIES.get(random.nextInt(CatalogSeeder.CATEGORIES.size()))
+                    : "";
+            return get(baseUrl + "/api/products/summary?size=24&page=" + random.nextInt(Math.min(pages, 50)) + category);
+        });
+        builders.put("detail", random -> get(baseUrl + "/api/products/" + pick(productIds, random)));
+        builders.put("image", random -> get(baseUrl + pick(images, random) + "?w=" + (random.nextBoolean() ? 480 : 640)));
+        builders.put("enquiry", random -> post(baseUrl + "/api/mail/send-product-enquiry", """
+                {"name":"Load Test","email":"load@example.com","phone":"9876543210",\
+                "message":"Please send a quote","productId":"%s"}""".formatted(pick(productIds, random))));
+        builders.put("edit", random -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/" + pick(productIds, random)))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                        "{\"specification\":\"Revision " + random.nextInt(1_000_000) + "\"}"))
+                .build());
+
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            Function<SplittableRandom, HttpRequest> builder = builders.get(entry.getKey());
+            if (builder == null) {
+                throw new IllegalArgumentException("Unknown operation " + entry.getKey() + ", expected one of " + builders.keySet());
+            }
+            if (entry.getValue() > 0) {
+                operations.add(new Operation(entry.getKey(), entry.getValue(), builder));
+                total += entry.getValue();
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The mix has no operations");
+        }
+        this.totalWeight = total;
+    }
+
+    List<String> names() {
+        return operations.stream().map(Operation::name).toList();
+    }
+
+    Operation next(SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private static String pick(List<String> values, SplittableRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}